@@ -22,8 +22,10 @@ public class IndexApplication implements CommandLineRunner {
 
     private static final String CREATE_NEW_INDEX_ARG = "createNewIndex";
 
+    private static final String REPLAY_DEAD_LETTERS_ARG = "replayDeadLetters";
+
     public static void main(String[] args) {
-        SpringApplication.run(IndexApplication.class, CREATE_NEW_INDEX_ARG);
+        SpringApplication.run(IndexApplication.class, args.length == 0 ? new String[]{CREATE_NEW_INDEX_ARG} : args);
     }
 
     @Override
@@ -34,5 +36,8 @@ public class IndexApplication implements CommandLineRunner {
             indexService.createIndex();
             indexService.deletePreviousIndices(esFieldsConfig.getIndex().getIndexName(), esFieldsConfig.getIndex().getIndicesAmount());
         }
+        if (args.contains(REPLAY_DEAD_LETTERS_ARG)) {
+            indexService.replayDeadLetters();
+        }
     }
 }
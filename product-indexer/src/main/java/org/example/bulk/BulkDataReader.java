@@ -0,0 +1,177 @@
+package org.example.bulk;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import lombok.extern.slf4j.Slf4j;
+import org.elasticsearch.action.DocWriteRequest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Streaming reader of bulk API formatted NDJSON files.
+ * <p>
+ * Lines are read as raw bytes. The action_and_metadata line is parsed once with a {@link JsonParser}
+ * straight from the line buffer, and the source line is handed over as a byte array without being
+ * decoded to a {@code String}, so it can go into the index request as is.
+ */
+@Slf4j
+public class BulkDataReader implements AutoCloseable {
+
+    private static final JsonFactory jsonFactory = new JsonFactory();
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final InputStream inputStream;
+    private final String indexField;
+    private final String idField;
+
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position;
+    private int limit;
+
+    private byte[] line = new byte[1024];
+    private int lineLength;
+
+    private DocWriteRequest.OpType opType;
+    private String index;
+    private String id;
+
+    public BulkDataReader(InputStream inputStream, String indexField, String idField) {
+        this.inputStream = inputStream;
+        this.indexField = indexField;
+        this.idField = idField;
+    }
+
+    /**
+     * @return the next record, or {@code null} once the end of the file is reached
+     */
+    public BulkDataRecord next() throws IOException {
+        while (readNonBlankLine()) {
+            boolean validActionLine = parseActionLine();
+
+            if (!readNonBlankLine()) {
+                log.warn("Bulk data file ends with an action_and_metadata line without a source line.");
+                return null;
+            }
+            if (validActionLine) {
+                return new BulkDataRecord(opType, index, id, Arrays.copyOf(line, lineLength));
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        inputStream.close();
+    }
+
+    private boolean parseActionLine() throws IOException {
+        opType = null;
+        index = null;
+        id = null;
+
+        try (JsonParser parser = jsonFactory.createParser(line, 0, lineLength)) {
+            expect(parser, parser.nextToken(), JsonToken.START_OBJECT);
+            expect(parser, parser.nextToken(), JsonToken.FIELD_NAME);
+            opType = DocWriteRequest.OpType.fromString(parser.getCurrentName());
+            expect(parser, parser.nextToken(), JsonToken.START_OBJECT);
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String fieldName = parser.getCurrentName();
+                parser.nextToken();
+                if (indexField.equals(fieldName)) {
+                    index = parser.getValueAsString();
+                } else if (idField.equals(fieldName)) {
+                    id = parser.getValueAsString();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            return true;
+        } catch (JsonProcessingException | IllegalArgumentException ex) {
+            log.warn("An exception occurred during parsing action_and_metadata line in the bulk data file:\n{}\nwith a message:\n{}",
+                    new String(line, 0, lineLength, StandardCharsets.UTF_8), ex.getMessage());
+            return false;
+        }
+    }
+
+    private static void expect(JsonParser parser, JsonToken actual, JsonToken expected) throws JsonParseException {
+        if (actual != expected) {
+            throw new JsonParseException(parser, "Expected " + expected + " but found " + actual);
+        }
+    }
+
+    private boolean readNonBlankLine() throws IOException {
+        while (readLine()) {
+            if (!isBlankLine()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isBlankLine() {
+        for (int i = 0; i < lineLength; i++) {
+            if (!Character.isWhitespace(line[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reads the next line into {@link #line} without its line terminator.
+     *
+     * @return {@code false} if the end of the stream has been reached
+     */
+    private boolean readLine() throws IOException {
+        lineLength = 0;
+        boolean hasData = false;
+
+        while (true) {
+            if (position >= limit) {
+                limit = inputStream.read(buffer, 0, BUFFER_SIZE);
+                position = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    trimCarriageReturn();
+                    return hasData;
+                }
+            }
+            hasData = true;
+
+            int start = position;
+            while (position < limit && buffer[position] != '\n') {
+                position++;
+            }
+            appendToLine(start, position);
+
+            if (position < limit) {
+                position++;
+                trimCarriageReturn();
+                return true;
+            }
+        }
+    }
+
+    private void appendToLine(int from, int to) {
+        int length = to - from;
+        if (lineLength + length > line.length) {
+            line = Arrays.copyOf(line, Math.max(line.length * 2, lineLength + length));
+        }
+        System.arraycopy(buffer, from, line, lineLength, length);
+        lineLength += length;
+    }
+
+    private void trimCarriageReturn() {
+        if (lineLength > 0 && line[lineLength - 1] == '\r') {
+            lineLength--;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package org.example.bulk;
+
+import org.elasticsearch.action.DocWriteRequest;
+
+/**
+ * A single document of a bulk data file: the parsed action_and_metadata line
+ * and the untouched UTF-8 bytes of the source line.
+ */
+public record BulkDataRecord(DocWriteRequest.OpType opType,
+                             String index,
+                             String id,
+                             byte[] source) {
+}
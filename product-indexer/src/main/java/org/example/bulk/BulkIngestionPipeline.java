@@ -0,0 +1,254 @@
+package org.example.bulk;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.rest.RestStatus;
+import org.example.config.EsFieldsConfig;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Streams index requests into Elasticsearch as a sequence of bounded bulk batches.
+ * A batch is flushed once it reaches the configured number of actions or size in bytes,
+ * and at most {@code concurrentRequests} batches are in flight at any time: {@link Session#add}
+ * blocks until a slot is free, so the reader never gets ahead of the cluster. Batches are sent with the
+ * synchronous bulk call from a pool of {@code concurrentRequests} sender threads: the async call of the 7.x
+ * high level client does not link against the 8.x low level client managed by Spring Boot.
+ * <p>
+ * Items rejected because of cluster pressure (429, 503, {@code es_rejected_execution_exception})
+ * are resent with exponential backoff while their batch keeps its in-flight slot. Items that fail
+ * permanently or run out of retries are written to the dead-letter file.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class BulkIngestionPipeline {
+
+    private static final String ES_REJECTED_EXECUTION = "es_rejected_execution_exception";
+
+    private final RestHighLevelClient esClient;
+
+    private final EsFieldsConfig esFieldsConfig;
+
+    public Session open() {
+        return new Session(esFieldsConfig.getBulk());
+    }
+
+    static boolean isRetryable(RestStatus status, String message) {
+        return status == RestStatus.TOO_MANY_REQUESTS
+                || status == RestStatus.SERVICE_UNAVAILABLE
+                || (message != null && message.contains(ES_REJECTED_EXECUTION));
+    }
+
+    public class Session implements AutoCloseable {
+
+        private final int maxActions;
+        private final long maxSizeInBytes;
+        private final int concurrentRequests;
+        private final int maxRetries;
+        private final long initialBackoffMillis;
+        private final Semaphore inFlightBatches;
+        private final AtomicLong batchSequence = new AtomicLong();
+        private final BulkIngestionStats stats = new BulkIngestionStats();
+        private final DeadLetterWriter deadLetterWriter;
+        private final ExecutorService sender;
+        private final ScheduledExecutorService retryScheduler;
+
+        private BulkRequest currentRequest = new BulkRequest();
+        private boolean closed;
+
+        private Session(EsFieldsConfig.Bulk bulk) {
+            this.maxActions = bulk.getMaxActions();
+            this.maxSizeInBytes = bulk.getMaxSizeInBytes();
+            this.concurrentRequests = bulk.getConcurrentRequests();
+            this.maxRetries = bulk.getMaxRetries();
+            this.initialBackoffMillis = bulk.getInitialBackoffMillis();
+            this.inFlightBatches = new Semaphore(concurrentRequests);
+            this.deadLetterWriter = new DeadLetterWriter(Path.of(bulk.getDeadLetterFile()));
+            this.sender = Executors.newFixedThreadPool(concurrentRequests, daemonThreadFactory("bulk-sender"));
+            this.retryScheduler = Executors.newSingleThreadScheduledExecutor(daemonThreadFactory("bulk-retry"));
+        }
+
+        public synchronized void add(DocWriteRequest<?> request) {
+            if (closed) {
+                throw new IllegalStateException("Bulk ingestion session is already closed");
+            }
+            currentRequest.add(request);
+            if (currentRequest.numberOfActions() >= maxActions
+                    || currentRequest.estimatedSizeInBytes() >= maxSizeInBytes) {
+                flush();
+            }
+        }
+
+        public BulkIngestionStats getStats() {
+            return stats;
+        }
+
+        @Override
+        public synchronized void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                flush();
+                inFlightBatches.acquireUninterruptibly(concurrentRequests);
+                inFlightBatches.release(concurrentRequests);
+            } finally {
+                retryScheduler.shutdownNow();
+                sender.shutdown();
+                deadLetterWriter.close();
+            }
+            stats.logSummary();
+            if (deadLetterWriter.getCount() > 0) {
+                log.warn("{} documents could not be indexed and were written to {}",
+                        deadLetterWriter.getCount(), deadLetterWriter.getDeadLetterFile().toAbsolutePath());
+            }
+        }
+
+        private void flush() {
+            if (currentRequest.numberOfActions() == 0) {
+                return;
+            }
+            BulkRequest request = currentRequest;
+            currentRequest = new BulkRequest();
+
+            inFlightBatches.acquireUninterruptibly();
+            Batch batch = new Batch(batchSequence.incrementAndGet(), request.numberOfActions(), request.estimatedSizeInBytes());
+            send(batch, request, 0);
+        }
+
+        private void send(Batch batch, BulkRequest request, int attempt) {
+            try {
+                sender.execute(() -> {
+                    long attemptStartNanos = System.nanoTime();
+                    BulkResponse bulkResponse;
+                    try {
+                        bulkResponse = esClient.bulk(request, RequestOptions.DEFAULT);
+                    } catch (IOException | RuntimeException ex) {
+                        handle(batch, () -> onBatchFailure(batch, request, ex, attempt));
+                        return;
+                    }
+                    handle(batch, () -> onBatchResponse(batch, request, bulkResponse, attempt, attemptStartNanos));
+                });
+            } catch (RuntimeException ex) {
+                handle(batch, () -> onBatchFailure(batch, request, ex, attempt));
+            }
+        }
+
+        private void handle(Batch batch, Runnable handler) {
+            try {
+                handler.run();
+            } catch (RuntimeException ex) {
+                log.error("Unexpected error while handling bulk batch #{}", batch.id, ex);
+                complete(batch);
+            }
+        }
+
+        private void onBatchResponse(Batch batch, BulkRequest request, BulkResponse bulkResponse,
+                                     int attempt, long attemptStartNanos) {
+            BulkRequest retryRequest = new BulkRequest();
+            for (BulkItemResponse item : bulkResponse.getItems()) {
+                if (!item.isFailed()) {
+                    continue;
+                }
+                DocWriteRequest<?> failedRequest = request.requests().get(item.getItemId());
+                if (attempt < maxRetries && isRetryable(item.getFailure().getStatus(), item.getFailureMessage())) {
+                    retryRequest.add(failedRequest);
+                } else {
+                    deadLetter(batch, failedRequest, item.getFailureMessage());
+                }
+            }
+
+            log.info("Bulk batch #{} attempt {}: {} actions, {} bytes in {} ms (took {} ms in ES), {} to retry in {} ms.",
+                    batch.id, attempt + 1, request.numberOfActions(), request.estimatedSizeInBytes(),
+                    elapsedMillis(attemptStartNanos), bulkResponse.getTook().millis(),
+                    retryRequest.numberOfActions(), retryRequest.numberOfActions() > 0 ? backoffMillis(attempt) : 0);
+
+            retryOrComplete(batch, retryRequest, attempt);
+        }
+
+        private void onBatchFailure(Batch batch, BulkRequest request, Exception ex, int attempt) {
+            if (attempt < maxRetries && isRetryable(ExceptionsHelper.status(ex), ex.getMessage())) {
+                log.warn("Bulk batch #{} attempt {} was rejected by the cluster: {}", batch.id, attempt + 1, ex.getMessage());
+                retryOrComplete(batch, request, attempt);
+                return;
+            }
+
+            log.error("Bulk batch #{} of {} actions failed on attempt {}", batch.id, request.numberOfActions(), attempt + 1, ex);
+            for (DocWriteRequest<?> failedRequest : request.requests()) {
+                deadLetter(batch, failedRequest, ex.getMessage());
+            }
+            complete(batch);
+        }
+
+        private void retryOrComplete(Batch batch, BulkRequest retryRequest, int attempt) {
+            if (retryRequest.numberOfActions() == 0) {
+                complete(batch);
+                return;
+            }
+            stats.recordRetries(retryRequest.numberOfActions());
+            retryScheduler.schedule(() -> send(batch, retryRequest, attempt + 1), backoffMillis(attempt), TimeUnit.MILLISECONDS);
+        }
+
+        private long backoffMillis(int attempt) {
+            return initialBackoffMillis << attempt;
+        }
+
+        private void deadLetter(Batch batch, DocWriteRequest<?> failedRequest, String reason) {
+            batch.failures.incrementAndGet();
+            deadLetterWriter.write(failedRequest, reason);
+        }
+
+        private void complete(Batch batch) {
+            try {
+                stats.recordBatch(batch.actions, batch.sizeInBytes, batch.failures.get(), elapsedMillis(batch.startNanos));
+            } finally {
+                inFlightBatches.release();
+            }
+        }
+
+        private long elapsedMillis(long startNanos) {
+            return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        }
+    }
+
+    private static ThreadFactory daemonThreadFactory(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static final class Batch {
+        private final long id;
+        private final int actions;
+        private final long sizeInBytes;
+        private final long startNanos = System.nanoTime();
+        private final AtomicInteger failures = new AtomicInteger();
+
+        private Batch(long id, int actions, long sizeInBytes) {
+            this.id = id;
+            this.actions = actions;
+            this.sizeInBytes = sizeInBytes;
+        }
+    }
+}
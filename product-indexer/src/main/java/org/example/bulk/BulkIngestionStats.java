@@ -0,0 +1,64 @@
+package org.example.bulk;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+@Slf4j
+public class BulkIngestionStats {
+
+    private final long startNanos = System.nanoTime();
+
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder indexedDocs = new LongAdder();
+    private final LongAdder failedDocs = new LongAdder();
+    private final LongAdder retriedDocs = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder totalBatchLatencyMillis = new LongAdder();
+    private final AtomicLong maxBatchLatencyMillis = new AtomicLong();
+
+    void recordBatch(int actions, long sizeInBytes, int failures, long latencyMillis) {
+        batches.increment();
+        indexedDocs.add(actions - failures);
+        failedDocs.add(failures);
+        bytes.add(sizeInBytes);
+        totalBatchLatencyMillis.add(latencyMillis);
+        maxBatchLatencyMillis.accumulateAndGet(latencyMillis, Math::max);
+    }
+
+    void recordRetries(int retries) {
+        retriedDocs.add(retries);
+    }
+
+    public long getBatches() {
+        return batches.sum();
+    }
+
+    public long getIndexedDocs() {
+        return indexedDocs.sum();
+    }
+
+    public long getFailedDocs() {
+        return failedDocs.sum();
+    }
+
+    public long getRetriedDocs() {
+        return retriedDocs.sum();
+    }
+
+    public void logSummary() {
+        long elapsedMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        long batchCount = getBatches();
+        long docs = getIndexedDocs() + getFailedDocs();
+
+        log.info("Bulk ingestion finished: {} docs ({} indexed, {} failed, {} retries) in {} batches, {} MB in {} ms. " +
+                        "Throughput: {} docs/s. Batch latency avg: {} ms, max: {} ms.",
+                docs, getIndexedDocs(), getFailedDocs(), getRetriedDocs(), batchCount,
+                bytes.sum() / (1024 * 1024), elapsedMillis,
+                docs * 1000 / elapsedMillis,
+                batchCount == 0 ? 0 : totalBatchLatencyMillis.sum() / batchCount,
+                maxBatchLatencyMillis.get());
+    }
+}
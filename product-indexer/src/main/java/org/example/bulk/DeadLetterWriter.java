@@ -0,0 +1,83 @@
+package org.example.bulk;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.extern.slf4j.Slf4j;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.index.IndexRequest;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Appends permanently failed bulk items to a local NDJSON file in the bulk API format
+ * (action_and_metadata line followed by the source line), so the file can be replayed as is.
+ * The {@code _index} is left out: the index generation the item was sent to may be deleted by
+ * the time the file is replayed, and the replay writes to the alias.
+ * The file is only created once the first item is written.
+ */
+@Slf4j
+public class DeadLetterWriter implements AutoCloseable {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final Path deadLetterFile;
+
+    private BufferedWriter writer;
+    private long count;
+
+    public DeadLetterWriter(Path deadLetterFile) {
+        this.deadLetterFile = deadLetterFile;
+    }
+
+    public synchronized void write(DocWriteRequest<?> request, String reason) {
+        log.warn("Dead-lettering document {} of index {}: {}", request.id(), request.index(), reason);
+        try {
+            if (writer == null) {
+                writer = Files.newBufferedWriter(deadLetterFile, StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+            writer.write(buildActionLine(request));
+            writer.newLine();
+            writer.write(((IndexRequest) request).source().utf8ToString());
+            writer.newLine();
+            count++;
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Can not write to dead-letter file: " + deadLetterFile, ex);
+        }
+    }
+
+    public synchronized long getCount() {
+        return count;
+    }
+
+    public Path getDeadLetterFile() {
+        return deadLetterFile;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.close();
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Can not close dead-letter file: " + deadLetterFile, ex);
+        }
+    }
+
+    private static String buildActionLine(DocWriteRequest<?> request) {
+        ObjectNode actionLine = objectMapper.createObjectNode();
+        ObjectNode metadata = actionLine.putObject(request.opType().getLowercase());
+        if (request.id() != null) {
+            metadata.put("_id", request.id());
+        }
+        return actionLine.toString();
+    }
+}
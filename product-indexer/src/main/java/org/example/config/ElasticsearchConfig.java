@@ -28,7 +28,10 @@ public class ElasticsearchConfig {
         String esHost = esFieldsConfig.getProperty().getEsHost();
         String password = esFieldsConfig.getProperty().getPassword();
 
-        RestClientBuilder restClientBuilder = RestClient.builder(HttpHost.create(esHost));
+        // Force merge and cluster health calls of a full reindex can block for longer than the 30s default.
+        RestClientBuilder restClientBuilder = RestClient.builder(HttpHost.create(esHost))
+                .setRequestConfigCallback(requestConfigBuilder ->
+                        requestConfigBuilder.setSocketTimeout(esFieldsConfig.getProperty().getSocketTimeoutMillis()));
         if (isNotBlank(user) && isNotBlank(password)) {
             final CredentialsProvider credentialsProvider = new BasicCredentialsProvider();
             credentialsProvider.setCredentials(AuthScope.ANY,
@@ -13,6 +13,8 @@ public class EsFieldsConfig {
     private Property property;
     private Index index;
     private File file;
+    private Bulk bulk;
+    private Embedding embedding;
 
     @Data
     public static class Fields {
@@ -32,6 +34,7 @@ public class EsFieldsConfig {
         private String esHost;
         private String user;
         private String password;
+        private Integer socketTimeoutMillis;
     }
 
     @Data
@@ -40,4 +43,27 @@ public class EsFieldsConfig {
         private Resource settings;
         private Resource bulkData;
     }
+
+    @Data
+    public static class Bulk {
+        private Integer maxActions;
+        private Long maxSizeInBytes;
+        private Integer concurrentRequests;
+        private Integer maxRetries;
+        private Long initialBackoffMillis;
+        private String deadLetterFile;
+        private Boolean loadProfileEnabled;
+        private Integer forceMergeMaxNumSegments;
+        private String greenStatusTimeout;
+    }
+
+    @Data
+    public static class Embedding {
+        private Boolean enabled;
+        private String model;
+        private String vectorField;
+        private Integer batchSize;
+        private Integer concurrentRequests;
+        private String cacheFile;
+    }
 }
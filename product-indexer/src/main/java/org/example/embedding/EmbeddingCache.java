@@ -0,0 +1,259 @@
+package org.example.embedding;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Persistent embedding cache keyed by the SHA-256 hash of the embedding model and the embedded text.
+ * <p>
+ * The cache file is an append-only log of {@code (key, dimensions, vector)} entries. Only an index of the
+ * entries (the first 8 key bytes and the position of the entry) is held in memory; vectors are read from the
+ * file on lookup, and the full key is compared there. A truncated last entry, e.g. after a crash, is cut off
+ * the file before new entries are appended.
+ * <p>
+ * {@link #compact()} rewrites the file with the entries looked up or added since it was opened, once the
+ * unused ones make up more than a quarter of it, so vectors of names that left the catalog do not pile up.
+ */
+@Slf4j
+public class EmbeddingCache implements AutoCloseable {
+
+    private static final int KEY_LENGTH = 32;
+    private static final int HEADER_LENGTH = KEY_LENGTH + Integer.BYTES;
+    private static final int COMPACTION_UNUSED_RATIO = 4;
+
+    private final Path cacheFile;
+    private final String model;
+
+    private final Map<Long, Integer> entriesByKeyPrefix = new HashMap<>();
+    private long[] entryPositions = new long[1024];
+    private int entryCount;
+    private final BitSet usedEntries = new BitSet();
+
+    private FileChannel channel;
+    private long fileLength;
+
+    public EmbeddingCache(Path cacheFile, String model) {
+        this.cacheFile = cacheFile;
+        this.model = model;
+        load();
+    }
+
+    public synchronized float[] get(String text) {
+        byte[] key = key(text);
+        Integer entry = entriesByKeyPrefix.get(keyPrefix(key));
+        if (entry == null) {
+            return null;
+        }
+        float[] vector = readVector(entry, key);
+        if (vector != null) {
+            usedEntries.set(entry);
+        }
+        return vector;
+    }
+
+    public synchronized void put(String text, float[] vector) {
+        byte[] key = key(text);
+        if (entriesByKeyPrefix.containsKey(keyPrefix(key))) {
+            return;
+        }
+        ByteBuffer entry = ByteBuffer.allocate(HEADER_LENGTH + Float.BYTES * vector.length);
+        entry.put(key).putInt(vector.length);
+        entry.asFloatBuffer().put(vector);
+        entry.rewind();
+        try {
+            FileChannel fileChannel = channel();
+            long position = fileLength;
+            while (entry.hasRemaining()) {
+                fileChannel.write(entry, position + entry.position());
+            }
+            fileLength += entry.capacity();
+            usedEntries.set(addEntry(key, position));
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Can not write to embedding cache file: " + cacheFile, ex);
+        }
+    }
+
+    public synchronized int size() {
+        return entryCount;
+    }
+
+    /**
+     * Drops the entries that have not been looked up or added since the cache was opened; only call it once
+     * every name of the catalog went through the cache.
+     */
+    public synchronized void compact() {
+        int usedCount = usedEntries.cardinality();
+        if ((long) (entryCount - usedCount) * COMPACTION_UNUSED_RATIO <= entryCount) {
+            return;
+        }
+
+        Path compactedFile = cacheFile.resolveSibling(cacheFile.getFileName() + ".compact");
+        try (FileChannel compacted = FileChannel.open(compactedFile, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            FileChannel fileChannel = channel();
+            for (int entry = usedEntries.nextSetBit(0); entry >= 0; entry = usedEntries.nextSetBit(entry + 1)) {
+                long position = entryPositions[entry];
+                long length = (entry + 1 < entryCount ? entryPositions[entry + 1] : fileLength) - position;
+                long transferred = 0;
+                while (transferred < length) {
+                    transferred += fileChannel.transferTo(position + transferred, length - transferred, compacted);
+                }
+            }
+            compacted.force(true);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Can not compact embedding cache file: " + cacheFile, ex);
+        }
+
+        closeChannel();
+        try {
+            Files.move(compactedFile, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Can not replace embedding cache file: " + cacheFile, ex);
+        }
+        log.info("Embedding cache file {} has been compacted from {} to {} entries.",
+                cacheFile.toAbsolutePath(), entryCount, usedCount);
+
+        entriesByKeyPrefix.clear();
+        usedEntries.clear();
+        entryCount = 0;
+        fileLength = 0;
+        load();
+    }
+
+    @Override
+    public synchronized void close() {
+        closeChannel();
+    }
+
+    private void load() {
+        if (!Files.exists(cacheFile)) {
+            return;
+        }
+        long validLength = 0;
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(cacheFile)))) {
+            byte[] key = new byte[KEY_LENGTH];
+            while (true) {
+                input.readFully(key);
+                int dimensions = input.readInt();
+                input.skipNBytes((long) Float.BYTES * dimensions);
+                addEntry(key, validLength);
+                validLength += HEADER_LENGTH + (long) Float.BYTES * dimensions;
+            }
+        } catch (EOFException ex) {
+            log.info("{} embeddings have been indexed from cache file {}.", entryCount, cacheFile.toAbsolutePath());
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Can not read embedding cache file: " + cacheFile, ex);
+        }
+
+        try {
+            if (Files.size(cacheFile) > validLength) {
+                log.warn("Embedding cache file {} ends with a truncated entry, cutting it off.", cacheFile.toAbsolutePath());
+                try (FileChannel fileChannel = FileChannel.open(cacheFile, StandardOpenOption.WRITE)) {
+                    fileChannel.truncate(validLength);
+                }
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Can not repair embedding cache file: " + cacheFile, ex);
+        }
+        fileLength = validLength;
+    }
+
+    /**
+     * @return the entry number; an entry whose key prefix is already taken stays unindexed and is dropped
+     * by the next compaction
+     */
+    private int addEntry(byte[] key, long position) {
+        if (entryCount == entryPositions.length) {
+            entryPositions = Arrays.copyOf(entryPositions, entryCount * 2);
+        }
+        int entry = entryCount++;
+        entryPositions[entry] = position;
+        entriesByKeyPrefix.putIfAbsent(keyPrefix(key), entry);
+        return entry;
+    }
+
+    /**
+     * @return the vector of the entry, or {@code null} if its full key differs
+     */
+    private float[] readVector(int entry, byte[] key) {
+        try {
+            FileChannel fileChannel = channel();
+            long position = entryPositions[entry];
+            ByteBuffer header = readFully(fileChannel, ByteBuffer.allocate(HEADER_LENGTH), position);
+            if (!Arrays.equals(header.array(), 0, KEY_LENGTH, key, 0, KEY_LENGTH)) {
+                return null;
+            }
+            int dimensions = header.getInt(KEY_LENGTH);
+            ByteBuffer values = readFully(fileChannel, ByteBuffer.allocate(Float.BYTES * dimensions), position + HEADER_LENGTH);
+            float[] vector = new float[dimensions];
+            values.asFloatBuffer().get(vector);
+            return vector;
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Can not read embedding cache file: " + cacheFile, ex);
+        }
+    }
+
+    private static ByteBuffer readFully(FileChannel fileChannel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (fileChannel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException();
+            }
+        }
+        return buffer.flip();
+    }
+
+    private FileChannel channel() throws IOException {
+        if (channel == null) {
+            if (cacheFile.getParent() != null) {
+                Files.createDirectories(cacheFile.getParent());
+            }
+            channel = FileChannel.open(cacheFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+        return channel;
+    }
+
+    private void closeChannel() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+            channel = null;
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Can not close embedding cache file: " + cacheFile, ex);
+        }
+    }
+
+    private static long keyPrefix(byte[] key) {
+        return ByteBuffer.wrap(key).getLong();
+    }
+
+    private byte[] key(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(model.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+            return digest.digest(text.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
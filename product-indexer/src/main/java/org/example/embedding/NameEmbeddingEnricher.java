@@ -0,0 +1,279 @@
+package org.example.embedding;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.openai.client.OpenAIClient;
+import com.openai.models.embeddings.CreateEmbeddingResponse;
+import com.openai.models.embeddings.Embedding;
+import com.openai.models.embeddings.EmbeddingCreateParams;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.bulk.BulkDataRecord;
+import org.example.config.EsFieldsConfig;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Enrichment stage of the bulk pipeline that adds the name embedding to every document source.
+ * <p>
+ * Records are buffered into batches; the names of a batch that are not in the {@link EmbeddingCache}
+ * are embedded with a single embeddings API call, and at most {@code concurrentRequests} calls run at
+ * the same time. Enriched records are handed to the downstream consumer from the embedding threads;
+ * the first exception thrown by the consumer fails the session and is rethrown to the caller.
+ * Records without a name, or whose embedding call failed, are passed on unchanged.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class NameEmbeddingEnricher {
+
+    private static final JsonFactory jsonFactory = new JsonFactory();
+
+    private final OpenAIClient openAIClient;
+
+    private final EsFieldsConfig esFieldsConfig;
+
+    /**
+     * @param fullCatalog whether every document of the catalog goes through the session, so that the
+     *                    embedding cache can drop the names it has not seen on close
+     */
+    public Session open(Consumer<BulkDataRecord> downstream, boolean fullCatalog) {
+        return new Session(esFieldsConfig.getEmbedding(), downstream, fullCatalog);
+    }
+
+    public class Session implements AutoCloseable {
+
+        private final String model;
+        private final String nameField;
+        private final String vectorField;
+        private final int batchSize;
+        private final int concurrentRequests;
+        private final Consumer<BulkDataRecord> downstream;
+        private final boolean fullCatalog;
+        private final EmbeddingCache embeddingCache;
+        private final ExecutorService executor;
+        private final Semaphore inFlightRequests;
+
+        private final LongAdder cacheHits = new LongAdder();
+        private final LongAdder embeddedNames = new LongAdder();
+        private final LongAdder missingVectors = new LongAdder();
+        private final AtomicReference<RuntimeException> downstreamFailure = new AtomicReference<>();
+
+        private List<BulkDataRecord> currentBatch = new ArrayList<>();
+
+        private Session(EsFieldsConfig.Embedding embedding, Consumer<BulkDataRecord> downstream, boolean fullCatalog) {
+            this.model = embedding.getModel();
+            this.nameField = esFieldsConfig.getFields().getName();
+            this.vectorField = embedding.getVectorField();
+            this.batchSize = embedding.getBatchSize();
+            this.concurrentRequests = embedding.getConcurrentRequests();
+            this.downstream = downstream;
+            this.fullCatalog = fullCatalog;
+            this.embeddingCache = new EmbeddingCache(Path.of(embedding.getCacheFile()), model);
+            this.executor = Executors.newFixedThreadPool(concurrentRequests);
+            this.inFlightRequests = new Semaphore(concurrentRequests);
+        }
+
+        public synchronized void accept(BulkDataRecord bulkDataRecord) {
+            throwIfDownstreamFailed();
+            currentBatch.add(bulkDataRecord);
+            if (currentBatch.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        @Override
+        public synchronized void close() {
+            try {
+                flush();
+                inFlightRequests.acquireUninterruptibly(concurrentRequests);
+                inFlightRequests.release(concurrentRequests);
+                if (fullCatalog && downstreamFailure.get() == null) {
+                    embeddingCache.compact();
+                }
+            } finally {
+                executor.shutdown();
+                embeddingCache.close();
+            }
+            log.info("Name embedding finished: {} from cache, {} embedded, {} documents without a vector.",
+                    cacheHits.sum(), embeddedNames.sum(), missingVectors.sum());
+            throwIfDownstreamFailed();
+        }
+
+        private void throwIfDownstreamFailed() {
+            RuntimeException failure = downstreamFailure.get();
+            if (failure != null) {
+                throw new IllegalStateException("Enriched documents could not be handed downstream", failure);
+            }
+        }
+
+        private void flush() {
+            if (currentBatch.isEmpty()) {
+                return;
+            }
+            List<BulkDataRecord> batch = currentBatch;
+            currentBatch = new ArrayList<>(batchSize);
+
+            inFlightRequests.acquireUninterruptibly();
+            try {
+                executor.execute(() -> {
+                    try {
+                        enrich(batch);
+                    } catch (RuntimeException ex) {
+                        if (!downstreamFailure.compareAndSet(null, ex)) {
+                            log.error("Enriched documents could not be handed downstream", ex);
+                        }
+                    } finally {
+                        inFlightRequests.release();
+                    }
+                });
+            } catch (RuntimeException ex) {
+                inFlightRequests.release();
+                throw ex;
+            }
+        }
+
+        private void enrich(List<BulkDataRecord> batch) {
+            List<String> names = new ArrayList<>(batch.size());
+            Map<String, float[]> vectors = new LinkedHashMap<>();
+            for (BulkDataRecord bulkDataRecord : batch) {
+                String name = extractName(bulkDataRecord.source());
+                names.add(name);
+                if (name == null || vectors.containsKey(name)) {
+                    continue;
+                }
+                float[] cachedVector = embeddingCache.get(name);
+                if (cachedVector != null) {
+                    cacheHits.increment();
+                }
+                vectors.put(name, cachedVector);
+            }
+
+            List<String> namesToEmbed = vectors.entrySet().stream()
+                    .filter(entry -> entry.getValue() == null)
+                    .map(Map.Entry::getKey)
+                    .toList();
+            if (!namesToEmbed.isEmpty()) {
+                try {
+                    embed(namesToEmbed).forEach((name, vector) -> {
+                        vectors.put(name, vector);
+                        embeddingCache.put(name, vector);
+                    });
+                    embeddedNames.add(namesToEmbed.size());
+                } catch (RuntimeException ex) {
+                    log.error("Embedding of {} product names failed, documents are indexed without {}",
+                            namesToEmbed.size(), vectorField, ex);
+                }
+            }
+
+            for (int i = 0; i < batch.size(); i++) {
+                BulkDataRecord bulkDataRecord = batch.get(i);
+                float[] vector = names.get(i) != null ? vectors.get(names.get(i)) : null;
+                if (vector == null) {
+                    missingVectors.increment();
+                    downstream.accept(bulkDataRecord);
+                } else {
+                    downstream.accept(new BulkDataRecord(bulkDataRecord.opType(), bulkDataRecord.index(),
+                            bulkDataRecord.id(), appendVector(bulkDataRecord.source(), vector)));
+                }
+            }
+        }
+
+        private Map<String, float[]> embed(List<String> names) {
+            CreateEmbeddingResponse response = openAIClient.embeddings().create(EmbeddingCreateParams.builder()
+                    .model(model)
+                    .inputOfArrayOfStrings(names)
+                    .build());
+
+            Map<String, float[]> embeddings = new LinkedHashMap<>();
+            for (Embedding embedding : response.data()) {
+                List<Float> values = embedding.embedding();
+                float[] vector = new float[values.size()];
+                for (int i = 0; i < vector.length; i++) {
+                    vector[i] = values.get(i);
+                }
+                embeddings.put(names.get((int) embedding.index()), vector);
+            }
+            return embeddings;
+        }
+
+        /**
+         * @return the top level name of the document, or {@code null} if there is none
+         * or the document already contains a vector
+         */
+        private String extractName(byte[] source) {
+            String name = null;
+            try (JsonParser parser = jsonFactory.createParser(source)) {
+                if (parser.nextToken() != JsonToken.START_OBJECT) {
+                    return null;
+                }
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String fieldName = parser.getCurrentName();
+                    JsonToken valueToken = parser.nextToken();
+                    if (vectorField.equals(fieldName)) {
+                        return null;
+                    }
+                    if (nameField.equals(fieldName) && valueToken == JsonToken.VALUE_STRING) {
+                        name = parser.getText();
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            } catch (IOException ex) {
+                log.warn("Can not read {} from document source: {}", nameField, ex.getMessage());
+                return null;
+            }
+            return name == null || name.isBlank() ? null : name;
+        }
+
+        /**
+         * Appends the vector field to the end of the source object without re-serializing the document.
+         */
+        private byte[] appendVector(byte[] source, float[] vector) {
+            int end = source.length - 1;
+            while (end >= 0 && source[end] != '}') {
+                end--;
+            }
+            if (end < 0) {
+                return source;
+            }
+            int previous = end - 1;
+            while (previous >= 0 && Character.isWhitespace(source[previous])) {
+                previous--;
+            }
+
+            StringBuilder field = new StringBuilder(vector.length * 12 + vectorField.length() + 8);
+            if (previous >= 0 && source[previous] != '{') {
+                field.append(',');
+            }
+            field.append('"').append(vectorField).append("\":[");
+            for (int i = 0; i < vector.length; i++) {
+                if (i > 0) {
+                    field.append(',');
+                }
+                field.append(vector[i]);
+            }
+            field.append("]}");
+
+            ByteArrayOutputStream enrichedSource = new ByteArrayOutputStream(end + field.length());
+            enrichedSource.write(source, 0, end);
+            enrichedSource.writeBytes(field.toString().getBytes(StandardCharsets.US_ASCII));
+            return enrichedSource.toByteArray();
+        }
+    }
+}
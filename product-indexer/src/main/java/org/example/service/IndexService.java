@@ -6,4 +6,5 @@ public interface IndexService {
 
     void createIndex() throws IOException;
     void deletePreviousIndices(String indexPrefix, Long keepIndices) throws IOException;
+    void replayDeadLetters() throws IOException;
 }
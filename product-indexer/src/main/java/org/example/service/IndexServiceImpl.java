@@ -1,24 +1,18 @@
 package org.example.service;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ArrayNode;
-import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.google.common.io.Resources;
-import com.openai.client.OpenAIClient;
-import com.openai.models.embeddings.Embedding;
-import com.openai.models.embeddings.EmbeddingCreateParams;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.codec.Charsets;
 import org.elasticsearch.ElasticsearchException;
-import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.admin.cluster.health.ClusterHealthRequest;
+import org.elasticsearch.action.admin.cluster.health.ClusterHealthResponse;
 import org.elasticsearch.action.admin.indices.alias.IndicesAliasesRequest;
 import org.elasticsearch.action.admin.indices.alias.get.GetAliasesRequest;
 import org.elasticsearch.action.admin.indices.delete.DeleteIndexRequest;
+import org.elasticsearch.action.admin.indices.forcemerge.ForceMergeRequest;
 import org.elasticsearch.action.admin.indices.refresh.RefreshRequest;
-import org.elasticsearch.action.bulk.BulkRequest;
-import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.admin.indices.settings.put.UpdateSettingsRequest;
 import org.elasticsearch.action.index.IndexRequest;
 import org.elasticsearch.action.support.master.AcknowledgedResponse;
 import org.elasticsearch.client.GetAliasesResponse;
@@ -28,22 +22,30 @@ import org.elasticsearch.client.indices.CreateIndexRequest;
 import org.elasticsearch.client.indices.CreateIndexResponse;
 import org.elasticsearch.client.indices.GetIndexRequest;
 import org.elasticsearch.cluster.metadata.AliasMetaData;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.xcontent.XContentType;
+import org.example.bulk.BulkDataReader;
+import org.example.bulk.BulkDataRecord;
+import org.example.bulk.BulkIngestionPipeline;
 import org.example.config.EsFieldsConfig;
+import org.example.embedding.NameEmbeddingEnricher;
+import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
-
-import static io.micrometer.common.util.StringUtils.isNotEmpty;
+import java.util.function.Consumer;
 
 @Service
 @Slf4j
@@ -54,19 +56,47 @@ public class IndexServiceImpl implements IndexService {
 
     private final EsFieldsConfig esFieldsConfig;
 
-    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private final BulkIngestionPipeline bulkIngestionPipeline;
+
+    private final NameEmbeddingEnricher nameEmbeddingEnricher;
+
+    private static final String REFRESH_INTERVAL_SETTING = "index.refresh_interval";
+    private static final String NUMBER_OF_REPLICAS_SETTING = "index.number_of_replicas";
+    private static final String TRANSLOG_DURABILITY_SETTING = "index.translog.durability";
 
     @Override
     public void createIndex() throws IOException {
         String generatedUniqueIndexName = generateUniqueIndexName(esFieldsConfig.getIndex().getIndexName());
 
-        String settings = getStrFromResource(esFieldsConfig.getFile().getSettings());
+        Settings productionSettings = Settings.builder()
+                .loadFromSource(getStrFromResource(esFieldsConfig.getFile().getSettings()), XContentType.JSON)
+                .build();
         String mappings = getStrFromResource(esFieldsConfig.getFile().getMappings());
-        createIndex(generatedUniqueIndexName, settings, mappings);
+        boolean bulkLoadProfile = Boolean.TRUE.equals(esFieldsConfig.getBulk().getLoadProfileEnabled());
+        createIndex(generatedUniqueIndexName,
+                bulkLoadProfile ? applyBulkLoadProfile(productionSettings) : productionSettings,
+                mappings);
+
+        try {
+            processBulkInsertData(esFieldsConfig.getFile().getBulkData(), generatedUniqueIndexName, false);
+            if (bulkLoadProfile) {
+                restoreProductionSettings(generatedUniqueIndexName, productionSettings);
+            }
+            esClient.indices().refresh(new RefreshRequest(generatedUniqueIndexName), RequestOptions.DEFAULT);
+            forceMerge(generatedUniqueIndexName);
+            waitForGreenStatus(generatedUniqueIndexName);
+        } catch (IOException | RuntimeException ex) {
+            log.error("Loading of index {} failed, the alias is left unchanged.", generatedUniqueIndexName, ex);
+            try {
+                deleteIndex(generatedUniqueIndexName);
+            } catch (RuntimeException cleanupEx) {
+                // the load failure is the cause to report, a failed cleanup only leaves an unused index behind
+                ex.addSuppressed(cleanupEx);
+            }
+            throw ex;
+        }
 
         updateIndexAlias(generatedUniqueIndexName);
-        processBulkInsertData(esFieldsConfig.getFile().getBulkData());
-        esClient.indices().refresh(new RefreshRequest(generatedUniqueIndexName), RequestOptions.DEFAULT);
     }
 
     @Override
@@ -90,6 +120,37 @@ public class IndexServiceImpl implements IndexService {
         }
     }
 
+    @Override
+    public void replayDeadLetters() throws IOException {
+        Path deadLetterFile = Path.of(esFieldsConfig.getBulk().getDeadLetterFile());
+        Path replayFile = deadLetterFile.resolveSibling(deadLetterFile.getFileName() + ".replay");
+        if (!Files.exists(deadLetterFile) && !Files.exists(replayFile)) {
+            log.info("Dead-letter file {} does not exist, nothing to replay.", deadLetterFile.toAbsolutePath());
+            return;
+        }
+
+        // Items failing again during the replay are appended to a fresh dead-letter file. The replay file of an
+        // earlier replay that did not finish is kept and replayed together with the new dead letters.
+        if (Files.exists(deadLetterFile)) {
+            if (Files.exists(replayFile)) {
+                log.warn("Replay file {} of an unfinished replay has been found, appending the new dead letters to it.",
+                        replayFile.toAbsolutePath());
+                try (OutputStream replayOutput = Files.newOutputStream(replayFile, StandardOpenOption.APPEND)) {
+                    Files.copy(deadLetterFile, replayOutput);
+                }
+                Files.delete(deadLetterFile);
+            } else {
+                Files.move(deadLetterFile, replayFile);
+            }
+        }
+        log.info("Replaying dead-lettered documents from {}", replayFile.toAbsolutePath());
+
+        // The generation a document was first sent to may have been deleted since, so everything goes to the alias.
+        // The replay file is only deleted once the bulk session has been closed without an error.
+        processBulkInsertData(new FileSystemResource(replayFile), esFieldsConfig.getIndex().getIndexName(), true);
+        Files.delete(replayFile);
+    }
+
     private void updateIndexAlias(String generatedUniqueIndexName) {
         try {
             IndicesAliasesRequest aliasesRequest = new IndicesAliasesRequest();
@@ -153,75 +214,124 @@ public class IndexServiceImpl implements IndexService {
         }
     }
 
-    private void processBulkInsertData(Resource bulkInsertDataFile) {
-        int requestCnt = 0;
-        try {
-            BulkRequest bulkRequest = new BulkRequest();
-            BufferedReader br = new BufferedReader(new InputStreamReader(bulkInsertDataFile.getInputStream()));
-
-            while (br.ready()) {
-                String line1 = br.readLine(); // action_and_metadata
-                if (isNotEmpty(line1) && br.ready()) {
-                    requestCnt++;
-                    String line2 = br.readLine();
-                    IndexRequest indexRequest = createIndexRequestFromBulkData(line1, line2);
-                    if (indexRequest != null) {
-                        bulkRequest.add(indexRequest);
-                    }
-                }
-            }
+    /**
+     * Refresh is disabled, replicas are dropped and the translog is fsynced asynchronously
+     * while the index is loaded; the production values are restored once the load has finished.
+     */
+    private static Settings applyBulkLoadProfile(Settings productionSettings) {
+        return Settings.builder()
+                .put(productionSettings)
+                .put(REFRESH_INTERVAL_SETTING, "-1")
+                .put(NUMBER_OF_REPLICAS_SETTING, 0)
+                .put(TRANSLOG_DURABILITY_SETTING, "async")
+                .build();
+    }
 
-            BulkResponse bulkResponse = esClient.bulk(bulkRequest, RequestOptions.DEFAULT);
-            if (bulkResponse.getItems().length != requestCnt) {
-                log.warn("Only {} out of {} requests have been processed in a bulk request.", bulkResponse.getItems().length, requestCnt);
+    /**
+     * Settings missing from the production settings file are reset to null, so the cluster defaults apply again.
+     */
+    private void restoreProductionSettings(String indexName, Settings productionSettings) throws IOException {
+        Settings.Builder restoredSettingsBuilder = Settings.builder();
+        for (String setting : List.of(REFRESH_INTERVAL_SETTING, NUMBER_OF_REPLICAS_SETTING, TRANSLOG_DURABILITY_SETTING)) {
+            String productionValue = productionSettings.get(setting);
+            if (productionValue != null) {
+                restoredSettingsBuilder.put(setting, productionValue);
             } else {
-                log.info("{} requests have been processed in a bulk request.", bulkResponse.getItems().length);
+                restoredSettingsBuilder.putNull(setting);
             }
+        }
+        Settings restoredSettings = restoredSettingsBuilder.build();
 
-            if (bulkResponse.hasFailures()) {
-                log.warn("Bulk data processing has failures:\n{}", bulkResponse.buildFailureMessage());
-            }
+        AcknowledgedResponse response = esClient.indices().putSettings(
+                new UpdateSettingsRequest(indexName).settings(restoredSettings), RequestOptions.DEFAULT);
+        if (!response.isAcknowledged()) {
+            throw new RuntimeException("Restoring production settings not acknowledged for indexName: " + indexName);
+        }
+        log.info("Production settings {} have been restored for index {}.", restoredSettings, indexName);
+    }
+
+    private void forceMerge(String indexName) {
+        Integer maxNumSegments = esFieldsConfig.getBulk().getForceMergeMaxNumSegments();
+        if (maxNumSegments == null || maxNumSegments <= 0) {
+            return;
+        }
+        try {
+            esClient.indices().forcemerge(new ForceMergeRequest(indexName).maxNumSegments(maxNumSegments), RequestOptions.DEFAULT);
+            log.info("Index {} has been force merged to {} segments.", indexName, maxNumSegments);
         } catch (IOException ex) {
-            log.error("An exception occurred during bulk data processing", ex);
-            throw new RuntimeException(ex);
+            // The merge keeps running on the cluster even if the client gives up waiting for it.
+            log.warn("Force merge of index {} did not complete in time: {}", indexName, ex.getMessage());
         }
     }
 
-    private IndexRequest createIndexRequestFromBulkData(String line1, String line2) {
-        DocWriteRequest.OpType opType = null;
-        String esIndexName = null;
-        String esId = null;
+    private void waitForGreenStatus(String indexName) throws IOException {
+        TimeValue timeout = TimeValue.parseTimeValue(esFieldsConfig.getBulk().getGreenStatusTimeout(), "greenStatusTimeout");
+        ClusterHealthResponse health = esClient.cluster().health(
+                new ClusterHealthRequest(indexName).waitForGreenStatus().timeout(timeout), RequestOptions.DEFAULT);
 
-        try {
-            String esOpType = objectMapper.readTree(line1).fieldNames().next();
-            opType = DocWriteRequest.OpType.fromString(esOpType);
+        if (health.isTimedOut()) {
+            throw new RuntimeException("Index " + indexName + " has not reached green status within " + timeout
+                    + ", current status: " + health.getStatus());
+        }
+        log.info("Index {} is green.", indexName);
+    }
 
-            JsonNode indexJsonNode = objectMapper.readTree(line1).iterator().next().get(esFieldsConfig.getIndex().getIndex());
-            esIndexName = (indexJsonNode != null ? indexJsonNode.textValue() : esFieldsConfig.getIndex().getIndexName());
+    /**
+     * @param forceDefaultIndex whether the {@code _index} of the bulk data is ignored
+     */
+    private void processBulkInsertData(Resource bulkInsertDataFile, String defaultIndexName, boolean forceDefaultIndex) {
+        try (BulkDataReader bulkDataReader = new BulkDataReader(bulkInsertDataFile.getInputStream(),
+                esFieldsConfig.getIndex().getIndex(), esFieldsConfig.getFields().getId());
+             BulkIngestionPipeline.Session bulkSession = bulkIngestionPipeline.open()) {
+
+            Consumer<BulkDataRecord> indexStage = bulkDataRecord -> {
+                IndexRequest indexRequest = createIndexRequestFromBulkData(bulkDataRecord, defaultIndexName, forceDefaultIndex);
+                if (indexRequest != null) {
+                    bulkSession.add(indexRequest);
+                }
+            };
+
+            if (Boolean.TRUE.equals(esFieldsConfig.getEmbedding().getEnabled())) {
+                try (NameEmbeddingEnricher.Session embeddingSession = nameEmbeddingEnricher.open(indexStage, !forceDefaultIndex)) {
+                    readBulkData(bulkDataReader, embeddingSession::accept);
+                }
+            } else {
+                readBulkData(bulkDataReader, indexStage);
+            }
+        } catch (IOException ex) {
+            log.error("An exception occurred during bulk data processing", ex);
+            throw new RuntimeException(ex);
+        }
+    }
 
-            JsonNode idJsonNode = objectMapper.readTree(line1).iterator().next().get(esFieldsConfig.getFields().getId());
-            esId = (idJsonNode != null ? idJsonNode.textValue() : null);
-        } catch (IOException | IllegalArgumentException ex) {
-            log.warn("An exception occurred during parsing action_and_metadata line in the bulk data file:\n{}\nwith a message:\n{}", line1, ex.getMessage());
+    private static void readBulkData(BulkDataReader bulkDataReader, Consumer<BulkDataRecord> consumer) throws IOException {
+        BulkDataRecord bulkDataRecord;
+        while ((bulkDataRecord = bulkDataReader.next()) != null) {
+            consumer.accept(bulkDataRecord);
         }
+    }
+
+    private IndexRequest createIndexRequestFromBulkData(BulkDataRecord bulkDataRecord, String defaultIndexName,
+                                                        boolean forceDefaultIndex) {
+        String esIndexName = bulkDataRecord.index() != null && !forceDefaultIndex ? bulkDataRecord.index() : defaultIndexName;
 
         try {
             return new IndexRequest(esIndexName)
-                    .id(esId)
-                    .opType(opType)
-                    .source(line2, XContentType.JSON);
+                    .id(bulkDataRecord.id())
+                    .opType(bulkDataRecord.opType())
+                    .source(bulkDataRecord.source(), XContentType.JSON);
 
         } catch (IllegalArgumentException e) {
-            log.warn("Failed to parse or enrich document: {}", line2, e);
+            log.warn("Failed to create index request for document with id {}", bulkDataRecord.id(), e);
             return null;
         }
     }
 
 
-    private void createIndex(String indexName, String settings, String mappings) {
+    private void createIndex(String indexName, Settings settings, String mappings) {
         CreateIndexRequest createIndexRequest = new CreateIndexRequest(indexName)
                 .mapping(mappings, XContentType.JSON)
-                .settings(settings, XContentType.JSON);
+                .settings(settings);
 
         CreateIndexResponse createIndexResponse;
         try {
@@ -0,0 +1,113 @@
+package org.example.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.example.bulk.BulkDataReader;
+import org.example.bulk.BulkDataRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the previous bulk file parsing ({@code BufferedReader} + three {@code readTree} calls
+ * per action line + {@code String} source) with {@link BulkDataReader}.
+ * <p>
+ * Run {@link #main} with the test classpath, e.g. from the IDE.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+public class BulkDataParsingBenchmark {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private static final String INDEX_FIELD = "_index";
+    private static final String ID_FIELD = "_id";
+    private static final String DEFAULT_INDEX = "product_index";
+
+    @Param({"10000"})
+    private int documents;
+
+    private byte[] bulkData;
+
+    @Setup
+    public void setUp() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < documents; i++) {
+            sb.append("{\"create\": {\"_id\": \"").append(i).append("\"}}\n");
+            sb.append("{\"brand\": \"Nike\", \"name\": \"tech fleece jogger pants ").append(i)
+                    .append("\", \"price\": 110.00, \"skus\": [{\"color\": \"Black\", \"size\": \"S\"}, ")
+                    .append("{\"color\": \"Black\", \"size\": \"M\"}, {\"color\": \"Blue\", \"size\": \"L\"}], ")
+                    .append("\"category\": \"pants\"}\n");
+        }
+        bulkData = sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public void readTreePerField(Blackhole blackhole) throws IOException {
+        BufferedReader br = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(bulkData)));
+        while (br.ready()) {
+            String line1 = br.readLine();
+            if (line1 != null && !line1.isEmpty() && br.ready()) {
+                String line2 = br.readLine();
+
+                DocWriteRequest.OpType opType = DocWriteRequest.OpType.fromString(objectMapper.readTree(line1).fieldNames().next());
+                JsonNode indexJsonNode = objectMapper.readTree(line1).iterator().next().get(INDEX_FIELD);
+                String esIndexName = indexJsonNode != null ? indexJsonNode.textValue() : DEFAULT_INDEX;
+                JsonNode idJsonNode = objectMapper.readTree(line1).iterator().next().get(ID_FIELD);
+                String esId = idJsonNode != null ? idJsonNode.textValue() : null;
+
+                blackhole.consume(new IndexRequest(esIndexName)
+                        .id(esId)
+                        .opType(opType)
+                        .source(line2, XContentType.JSON));
+            }
+        }
+    }
+
+    @Benchmark
+    public void streamingReader(Blackhole blackhole) throws IOException {
+        try (BulkDataReader reader = new BulkDataReader(new ByteArrayInputStream(bulkData), INDEX_FIELD, ID_FIELD)) {
+            BulkDataRecord record;
+            while ((record = reader.next()) != null) {
+                blackhole.consume(new IndexRequest(record.index() != null ? record.index() : DEFAULT_INDEX)
+                        .id(record.id())
+                        .opType(record.opType())
+                        .source(record.source(), XContentType.JSON));
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(BulkDataParsingBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build())
+                .run();
+    }
+}
@@ -0,0 +1,79 @@
+package org.example.bulk;
+
+import junit.framework.TestCase;
+import org.elasticsearch.action.DocWriteRequest;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+public class BulkDataReaderTest extends TestCase {
+
+    public void testReadsActionAndSourceLines() throws IOException {
+        BulkDataReader reader = reader("""
+                {"create": {"_id": "9"}}
+                {"brand": "Nike", "name": "cotton t-shirt sport"}
+                {"index": {"_index": "product_index_1", "_id": 10, "routing": {"ignored": true}}}
+                {"brand": "Adidas", "name": "polyester track pants"}
+                """);
+
+        BulkDataRecord first = reader.next();
+        assertEquals(DocWriteRequest.OpType.CREATE, first.opType());
+        assertNull(first.index());
+        assertEquals("9", first.id());
+        assertEquals("{\"brand\": \"Nike\", \"name\": \"cotton t-shirt sport\"}", source(first));
+
+        BulkDataRecord second = reader.next();
+        assertEquals(DocWriteRequest.OpType.INDEX, second.opType());
+        assertEquals("product_index_1", second.index());
+        assertEquals("10", second.id());
+        assertEquals("{\"brand\": \"Adidas\", \"name\": \"polyester track pants\"}", source(second));
+
+        assertNull(reader.next());
+    }
+
+    public void testSkipsBlankLinesAndHandlesMissingTrailingNewline() throws IOException {
+        BulkDataReader reader = reader("\n{\"create\": {\"_id\": \"1\"}}\r\n\r\n{\"name\": \"jacket\"}");
+
+        BulkDataRecord record = reader.next();
+        assertEquals("1", record.id());
+        assertEquals("{\"name\": \"jacket\"}", source(record));
+        assertNull(reader.next());
+    }
+
+    public void testSkipsRecordWithMalformedActionLine() throws IOException {
+        BulkDataReader reader = reader("""
+                {"create": 
+                {"name": "broken"}
+                {"unknown_op": {"_id": "2"}}
+                {"name": "unknown"}
+                {"create": {"_id": "3"}}
+                {"name": "valid"}
+                """);
+
+        BulkDataRecord record = reader.next();
+        assertEquals("3", record.id());
+        assertNull(reader.next());
+    }
+
+    public void testReadsLinesLongerThanReadBuffer() throws IOException {
+        String longName = "x".repeat(200_000);
+        BulkDataReader reader = reader("{\"create\": {\"_id\": \"1\"}}\n{\"name\": \"" + longName + "\"}\n");
+
+        assertEquals("{\"name\": \"" + longName + "\"}", source(reader.next()));
+    }
+
+    public void testActionLineWithoutSourceLineEndsReading() throws IOException {
+        BulkDataReader reader = reader("{\"create\": {\"_id\": \"1\"}}\n");
+
+        assertNull(reader.next());
+    }
+
+    private static BulkDataReader reader(String content) {
+        return new BulkDataReader(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), "_index", "_id");
+    }
+
+    private static String source(BulkDataRecord record) {
+        return new String(record.source(), StandardCharsets.UTF_8);
+    }
+}
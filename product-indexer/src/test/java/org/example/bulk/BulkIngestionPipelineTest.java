@@ -0,0 +1,123 @@
+package org.example.bulk;
+
+import junit.framework.TestCase;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.example.config.EsFieldsConfig;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class BulkIngestionPipelineTest extends TestCase {
+
+    private static final long INITIAL_BACKOFF_MILLIS = 100;
+
+    private StubElasticsearchServer server;
+
+    private Path deadLetterFile;
+
+    @Override
+    protected void setUp() throws IOException {
+        server = new StubElasticsearchServer();
+        deadLetterFile = Files.createTempFile("bulk_dead_letter", ".ndjson");
+        Files.delete(deadLetterFile);
+    }
+
+    @Override
+    protected void tearDown() throws IOException {
+        server.close();
+        Files.deleteIfExists(deadLetterFile);
+    }
+
+    public void testAddBlocksWhileInFlightLimitIsReached() throws Exception {
+        CountDownLatch responses = server.holdResponses();
+        BulkIngestionPipeline.Session session = pipeline(1, 0).open();
+
+        session.add(request("1"));
+        assertEquals(1, server.awaitBulkRequests(1, 5, TimeUnit.SECONDS).size());
+
+        Thread secondAdd = new Thread(() -> session.add(request("2")));
+        secondAdd.start();
+        secondAdd.join(200);
+        assertTrue(secondAdd.isAlive());
+        assertEquals(1, server.bulkRequests().size());
+
+        responses.countDown();
+        secondAdd.join(TimeUnit.SECONDS.toMillis(5));
+        assertFalse(secondAdd.isAlive());
+        session.close();
+
+        assertEquals(2, server.bulkRequests().size());
+        assertEquals(2, session.getStats().getIndexedDocs());
+    }
+
+    public void testRejectedItemsAreResentWithBackoff() throws IOException {
+        server.respondWith(item -> "2".equals(item.id()) && server.bulkRequests().size() == 1 ? 429 : 201);
+
+        BulkIngestionPipeline.Session session = pipeline(2, 3).open();
+        session.add(request("1"));
+        session.add(request("2"));
+        session.close();
+
+        List<List<StubElasticsearchServer.BulkItem>> bulkRequests = server.bulkRequests();
+        assertEquals(2, bulkRequests.size());
+        assertEquals(List.of("1", "2"), bulkRequests.get(0).stream().map(StubElasticsearchServer.BulkItem::id).toList());
+        assertEquals(List.of("2"), bulkRequests.get(1).stream().map(StubElasticsearchServer.BulkItem::id).toList());
+        long backoffNanos = bulkRequests.get(1).get(0).receivedNanos() - bulkRequests.get(0).get(0).receivedNanos();
+        assertTrue(backoffNanos >= TimeUnit.MILLISECONDS.toNanos(INITIAL_BACKOFF_MILLIS));
+
+        assertEquals(2, session.getStats().getIndexedDocs());
+        assertEquals(1, session.getStats().getRetriedDocs());
+        assertFalse(Files.exists(deadLetterFile));
+    }
+
+    public void testExhaustedAndPermanentFailuresAreDeadLettered() throws IOException {
+        server.respondWith(item -> switch (item.id()) {
+            case "1" -> 429;
+            case "2" -> 400;
+            default -> 201;
+        });
+
+        BulkIngestionPipeline.Session session = pipeline(3, 1).open();
+        session.add(request("1"));
+        session.add(request("2"));
+        session.add(request("3"));
+        session.close();
+
+        // the permanent failure is not retried, the rejected item is retried once
+        assertEquals(2, server.bulkRequests().size());
+        assertEquals(List.of("1"), server.bulkRequests().get(1).stream().map(StubElasticsearchServer.BulkItem::id).toList());
+
+        assertEquals(List.of(
+                "{\"index\":{\"_id\":\"2\"}}",
+                "{\"name\":\"product 2\"}",
+                "{\"index\":{\"_id\":\"1\"}}",
+                "{\"name\":\"product 1\"}"), Files.readAllLines(deadLetterFile));
+        assertEquals(1, session.getStats().getIndexedDocs());
+        assertEquals(2, session.getStats().getFailedDocs());
+    }
+
+    private BulkIngestionPipeline pipeline(int maxActions, int maxRetries) {
+        EsFieldsConfig.Bulk bulk = new EsFieldsConfig.Bulk();
+        bulk.setMaxActions(maxActions);
+        bulk.setMaxSizeInBytes(5L * 1024 * 1024);
+        bulk.setConcurrentRequests(1);
+        bulk.setMaxRetries(maxRetries);
+        bulk.setInitialBackoffMillis(INITIAL_BACKOFF_MILLIS);
+        bulk.setDeadLetterFile(deadLetterFile.toString());
+
+        EsFieldsConfig config = new EsFieldsConfig();
+        config.setBulk(bulk);
+        return new BulkIngestionPipeline(server.client(), config);
+    }
+
+    private static IndexRequest request(String id) {
+        return new IndexRequest("product_index_1")
+                .id(id)
+                .source("{\"name\":\"product " + id + "\"}", XContentType.JSON);
+    }
+}
@@ -0,0 +1,166 @@
+package org.example.bulk;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.http.HttpHost;
+import org.elasticsearch.client.RestClient;
+import org.elasticsearch.client.RestHighLevelClient;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToIntFunction;
+
+/**
+ * Stand-in for an Elasticsearch node that answers {@code _bulk} requests with the item statuses chosen by the
+ * test. Received requests are recorded, and responses can be held back to keep batches in flight.
+ */
+public class StubElasticsearchServer implements AutoCloseable {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final HttpServer server;
+
+    private final RestHighLevelClient client;
+
+    private final List<List<BulkItem>> bulkRequests = Collections.synchronizedList(new ArrayList<>());
+
+    private volatile ToIntFunction<BulkItem> itemStatus = item -> 201;
+
+    private volatile CountDownLatch responseGate = new CountDownLatch(0);
+
+    public StubElasticsearchServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/_bulk", this::handleBulk);
+        server.start();
+        client = new RestHighLevelClient(RestClient.builder(new HttpHost("localhost", server.getAddress().getPort())));
+    }
+
+    public RestHighLevelClient client() {
+        return client;
+    }
+
+    /**
+     * @param itemStatus HTTP status of every bulk item: 429 is answered with an
+     *                   {@code es_rejected_execution_exception}, other error statuses with a mapping failure
+     */
+    public void respondWith(ToIntFunction<BulkItem> itemStatus) {
+        this.itemStatus = itemStatus;
+    }
+
+    /**
+     * Holds bulk responses back until the returned latch is counted down.
+     */
+    public CountDownLatch holdResponses() {
+        CountDownLatch gate = new CountDownLatch(1);
+        responseGate = gate;
+        return gate;
+    }
+
+    public List<List<BulkItem>> bulkRequests() {
+        synchronized (bulkRequests) {
+            return List.copyOf(bulkRequests);
+        }
+    }
+
+    /**
+     * Waits until the given number of bulk requests has been received, also while their responses are held back.
+     *
+     * @return the bulk requests received so far
+     */
+    public List<List<BulkItem>> awaitBulkRequests(int count, long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        synchronized (bulkRequests) {
+            long remainingNanos;
+            while (bulkRequests.size() < count && (remainingNanos = deadline - System.nanoTime()) > 0) {
+                TimeUnit.NANOSECONDS.timedWait(bulkRequests, remainingNanos);
+            }
+            return List.copyOf(bulkRequests);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        responseGate.countDown();
+        client.close();
+        server.stop(0);
+    }
+
+    private void handleBulk(HttpExchange exchange) throws IOException {
+        long receivedNanos = System.nanoTime();
+        String[] lines = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8).split("\n");
+        List<BulkItem> items = new ArrayList<>();
+        for (int i = 0; i + 1 < lines.length; i += 2) {
+            Map.Entry<String, JsonNode> action = objectMapper.readTree(lines[i]).fields().next();
+            JsonNode metadata = action.getValue();
+            items.add(new BulkItem(action.getKey(), text(metadata, "_index"), text(metadata, "_id"), lines[i + 1], receivedNanos));
+        }
+        synchronized (bulkRequests) {
+            bulkRequests.add(items);
+            bulkRequests.notifyAll();
+        }
+
+        try {
+            responseGate.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        byte[] response = bulkResponse(items).toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, response.length);
+        try (OutputStream body = exchange.getResponseBody()) {
+            body.write(response);
+        }
+    }
+
+    private ObjectNode bulkResponse(List<BulkItem> items) {
+        ObjectNode response = objectMapper.createObjectNode();
+        response.put("took", 1);
+        ArrayNode responseItems = response.putArray("items");
+        boolean errors = false;
+        for (BulkItem item : items) {
+            int status = itemStatus.applyAsInt(item);
+            ObjectNode result = responseItems.addObject().putObject(item.action());
+            result.put("_index", item.index() != null ? item.index() : "product_index")
+                    .put("_type", "_doc")
+                    .put("_id", item.id() != null ? item.id() : "generated")
+                    .put("status", status);
+            if (status < 400) {
+                result.put("_version", 1).put("result", "created").put("_seq_no", 0).put("_primary_term", 1);
+                result.putObject("_shards").put("total", 1).put("successful", 1).put("failed", 0);
+            } else {
+                errors = true;
+                result.putObject("error")
+                        .put("type", status == 429 ? "es_rejected_execution_exception" : "mapper_parsing_exception")
+                        .put("reason", "rejected by stub");
+            }
+        }
+        response.put("errors", errors);
+        return response;
+    }
+
+    private static String text(JsonNode node, String field) {
+        return node.hasNonNull(field) ? node.get(field).asText() : null;
+    }
+
+    public record BulkItem(String action,
+                           String index,
+                           String id,
+                           String source,
+                           long receivedNanos) {
+    }
+}
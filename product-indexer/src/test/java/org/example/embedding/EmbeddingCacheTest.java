@@ -0,0 +1,67 @@
+package org.example.embedding;
+
+import junit.framework.TestCase;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class EmbeddingCacheTest extends TestCase {
+
+    private static final String MODEL = "text-embedding-3-large";
+
+    private Path cacheFile;
+
+    @Override
+    protected void setUp() throws IOException {
+        cacheFile = Files.createTempFile("embedding_cache", ".bin");
+        Files.delete(cacheFile);
+    }
+
+    @Override
+    protected void tearDown() throws IOException {
+        Files.deleteIfExists(cacheFile);
+    }
+
+    public void testVectorsAreReadBackFromTheFile() {
+        try (EmbeddingCache embeddingCache = new EmbeddingCache(cacheFile, MODEL)) {
+            embeddingCache.put("tech fleece jogger", new float[]{1.5f, -2.0f, 0.25f});
+            assertEquals(1.5f, embeddingCache.get("tech fleece jogger")[0]);
+        }
+
+        try (EmbeddingCache embeddingCache = new EmbeddingCache(cacheFile, MODEL)) {
+            assertEquals(1, embeddingCache.size());
+            assertEquals(0.25f, embeddingCache.get("tech fleece jogger")[2]);
+            assertNull(embeddingCache.get("windrunner jacket"));
+        }
+
+        try (EmbeddingCache embeddingCache = new EmbeddingCache(cacheFile, "text-embedding-3-small")) {
+            assertNull(embeddingCache.get("tech fleece jogger"));
+        }
+    }
+
+    public void testCompactionDropsEntriesNotUsedSinceOpen() throws IOException {
+        try (EmbeddingCache embeddingCache = new EmbeddingCache(cacheFile, MODEL)) {
+            embeddingCache.put("tech fleece jogger", new float[]{1.0f, 2.0f});
+            embeddingCache.put("windrunner jacket", new float[]{3.0f, 4.0f});
+            embeddingCache.put("cotton chino shorts", new float[]{5.0f, 6.0f});
+        }
+        long entryLength = Files.size(cacheFile) / 3;
+
+        try (EmbeddingCache embeddingCache = new EmbeddingCache(cacheFile, MODEL)) {
+            embeddingCache.get("windrunner jacket");
+            embeddingCache.put("air max sneakers", new float[]{7.0f, 8.0f});
+            embeddingCache.compact();
+
+            assertEquals(2, embeddingCache.size());
+            assertEquals(2 * entryLength, Files.size(cacheFile));
+            assertEquals(3.0f, embeddingCache.get("windrunner jacket")[0]);
+            assertNull(embeddingCache.get("tech fleece jogger"));
+        }
+
+        try (EmbeddingCache embeddingCache = new EmbeddingCache(cacheFile, MODEL)) {
+            assertEquals(8.0f, embeddingCache.get("air max sneakers")[1]);
+            assertNull(embeddingCache.get("cotton chino shorts"));
+        }
+    }
+}
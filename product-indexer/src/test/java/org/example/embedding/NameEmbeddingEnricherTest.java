@@ -0,0 +1,166 @@
+package org.example.embedding;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openai.client.OpenAIClient;
+import com.openai.models.embeddings.CreateEmbeddingResponse;
+import com.openai.models.embeddings.Embedding;
+import com.openai.models.embeddings.EmbeddingCreateParams;
+import com.openai.services.blocking.EmbeddingService;
+import junit.framework.TestCase;
+import org.elasticsearch.action.DocWriteRequest;
+import org.example.bulk.BulkDataRecord;
+import org.example.config.EsFieldsConfig;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class NameEmbeddingEnricherTest extends TestCase {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final List<List<String>> embeddingRequests = Collections.synchronizedList(new ArrayList<>());
+
+    private Path cacheFile;
+
+    @Override
+    protected void setUp() throws IOException {
+        cacheFile = Files.createTempFile("embedding_cache", ".bin");
+        Files.delete(cacheFile);
+    }
+
+    @Override
+    protected void tearDown() throws IOException {
+        Files.deleteIfExists(cacheFile);
+    }
+
+    public void testBatchesNamesAndAppendsVectors() throws IOException {
+        List<BulkDataRecord> enriched = enrich(
+                record("1", "{\"name\": \"tech fleece jogger\", \"price\": 110.0}"),
+                record("2", "{\"name\": \"windrunner jacket\"}"),
+                record("3", "{\"name\": \"tech fleece jogger\"}"),
+                record("4", "{\"brand\": \"Nike\"}"));
+
+        // the second batch only repeats an already embedded name, so it is served from the cache
+        assertEquals(List.of(List.of("tech fleece jogger", "windrunner jacket")), embeddingRequests);
+
+        JsonNode first = source(enriched, "1");
+        assertEquals(110.0, first.get("price").doubleValue());
+        assertEquals(3, first.get("name_vector").size());
+        assertEquals("tech fleece jogger".length(), first.get("name_vector").get(0).intValue());
+        assertFalse(source(enriched, "4").has("name_vector"));
+    }
+
+    public void testCachedNamesAreNotEmbeddedAgain() throws IOException {
+        enrich(record("1", "{\"name\": \"cotton chino shorts\"}"));
+        embeddingRequests.clear();
+
+        List<BulkDataRecord> enriched = enrich(record("1", "{\"name\": \"cotton chino shorts\"}"));
+
+        assertTrue(embeddingRequests.isEmpty());
+        assertEquals(3, source(enriched, "1").get("name_vector").size());
+    }
+
+    public void testDownstreamFailureIsRethrownToTheCaller() {
+        NameEmbeddingEnricher enricher = new NameEmbeddingEnricher(stubOpenAIClient(), config());
+        NameEmbeddingEnricher.Session session = enricher.open(bulkDataRecord -> {
+            throw new IllegalStateException("Bulk ingestion session is already closed");
+        }, true);
+        session.accept(record("1", "{\"name\": \"tech fleece jogger\"}"));
+        session.accept(record("2", "{\"name\": \"windrunner jacket\"}"));
+
+        IllegalStateException failure = assertThrows(session::close);
+        assertEquals("Bulk ingestion session is already closed", failure.getCause().getMessage());
+    }
+
+    private static IllegalStateException assertThrows(Runnable runnable) {
+        try {
+            runnable.run();
+        } catch (IllegalStateException ex) {
+            return ex;
+        }
+        throw new AssertionError("IllegalStateException expected");
+    }
+
+    private List<BulkDataRecord> enrich(BulkDataRecord... records) {
+        NameEmbeddingEnricher enricher = new NameEmbeddingEnricher(stubOpenAIClient(), config());
+        List<BulkDataRecord> enriched = Collections.synchronizedList(new ArrayList<>());
+        try (NameEmbeddingEnricher.Session session = enricher.open(enriched::add, true)) {
+            for (BulkDataRecord record : records) {
+                session.accept(record);
+            }
+        }
+        assertEquals(records.length, enriched.size());
+        return enriched;
+    }
+
+    private EsFieldsConfig config() {
+        EsFieldsConfig.Fields fields = new EsFieldsConfig.Fields();
+        fields.setName("name");
+
+        EsFieldsConfig.Embedding embedding = new EsFieldsConfig.Embedding();
+        embedding.setEnabled(true);
+        embedding.setModel("text-embedding-3-large");
+        embedding.setVectorField("name_vector");
+        embedding.setBatchSize(2);
+        embedding.setConcurrentRequests(1);
+        embedding.setCacheFile(cacheFile.toString());
+
+        EsFieldsConfig config = new EsFieldsConfig();
+        config.setFields(fields);
+        config.setEmbedding(embedding);
+        return config;
+    }
+
+    /**
+     * Embeds every text as {@code [length, 0.5, -1.0]} and records the requested inputs.
+     */
+    private OpenAIClient stubOpenAIClient() {
+        AtomicInteger index = new AtomicInteger();
+        EmbeddingService embeddingService = (EmbeddingService) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{EmbeddingService.class},
+                (proxy, method, args) -> {
+                    if (!"create".equals(method.getName())) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    List<String> inputs = ((EmbeddingCreateParams) args[0]).input().arrayOfStrings().orElseThrow();
+                    embeddingRequests.add(List.copyOf(inputs));
+                    index.set(0);
+                    return CreateEmbeddingResponse.builder()
+                            .model("text-embedding-3-large")
+                            .usage(CreateEmbeddingResponse.Usage.builder().promptTokens(0).totalTokens(0).build())
+                            .data(inputs.stream()
+                                    .map(input -> Embedding.builder()
+                                            .index(index.getAndIncrement())
+                                            .embedding(List.of((float) input.length(), 0.5f, -1.0f))
+                                            .build())
+                                    .toList())
+                            .build();
+                });
+
+        return (OpenAIClient) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{OpenAIClient.class},
+                (proxy, method, args) -> {
+                    if (!"embeddings".equals(method.getName())) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    return embeddingService;
+                });
+    }
+
+    private static BulkDataRecord record(String id, String source) {
+        return new BulkDataRecord(DocWriteRequest.OpType.CREATE, null, id, source.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static JsonNode source(List<BulkDataRecord> records, String id) throws IOException {
+        BulkDataRecord record = records.stream().filter(r -> id.equals(r.id())).findFirst().orElseThrow();
+        return objectMapper.readTree(record.source());
+    }
+}
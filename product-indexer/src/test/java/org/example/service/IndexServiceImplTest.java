@@ -0,0 +1,133 @@
+package org.example.service;
+
+import junit.framework.TestCase;
+import org.example.bulk.BulkIngestionPipeline;
+import org.example.bulk.StubElasticsearchServer;
+import org.example.config.EsFieldsConfig;
+import org.example.embedding.NameEmbeddingEnricher;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+public class IndexServiceImplTest extends TestCase {
+
+    private StubElasticsearchServer server;
+
+    private Path deadLetterFile;
+
+    @Override
+    protected void setUp() throws IOException {
+        server = new StubElasticsearchServer();
+        deadLetterFile = Files.createTempFile("bulk_dead_letter", ".ndjson");
+    }
+
+    @Override
+    protected void tearDown() throws IOException {
+        server.close();
+        Files.deleteIfExists(deadLetterFile);
+        Files.deleteIfExists(deadLetterFile.resolveSibling(deadLetterFile.getFileName() + ".replay"));
+    }
+
+    public void testReplayDeadLettersWritesToAliasAndKeepsFailuresOnly() throws IOException {
+        Files.writeString(deadLetterFile, """
+                {"index":{"_index":"product_index_20240101000000","_id":"1"}}
+                {"name":"tech fleece jogger"}
+                {"create":{"_index":"product_index_20240101000000","_id":"2"}}
+                {"name":"windrunner jacket"}
+                """);
+        server.respondWith(item -> "2".equals(item.id()) ? 400 : 201);
+
+        indexService().replayDeadLetters();
+
+        List<StubElasticsearchServer.BulkItem> replayed = server.bulkRequests().get(0);
+        assertEquals(List.of("1", "2"), replayed.stream().map(StubElasticsearchServer.BulkItem::id).toList());
+        assertEquals("{\"name\":\"tech fleece jogger\"}", replayed.get(0).source());
+        // the generation recorded in older dead-letter files may be gone, the alias is written instead
+        assertEquals(List.of("product_index", "product_index"),
+                replayed.stream().map(StubElasticsearchServer.BulkItem::index).toList());
+
+        // the item failing again is the only one left in a fresh dead-letter file
+        List<String> deadLetters = Files.readAllLines(deadLetterFile);
+        assertEquals(2, deadLetters.size());
+        assertEquals("{\"create\":{\"_id\":\"2\"}}", deadLetters.get(0));
+        assertFalse(Files.exists(deadLetterFile.resolveSibling(deadLetterFile.getFileName() + ".replay")));
+    }
+
+    public void testLeftoverReplayFileIsReplayedWithNewDeadLetters() throws IOException {
+        Path replayFile = deadLetterFile.resolveSibling(deadLetterFile.getFileName() + ".replay");
+        Files.writeString(replayFile, """
+                {"index":{"_id":"1"}}
+                {"name":"tech fleece jogger"}
+                """);
+        Files.writeString(deadLetterFile, """
+                {"index":{"_id":"2"}}
+                {"name":"windrunner jacket"}
+                """);
+
+        indexService().replayDeadLetters();
+
+        assertEquals(List.of("1", "2"),
+                server.bulkRequests().get(0).stream().map(StubElasticsearchServer.BulkItem::id).toList());
+        assertFalse(Files.exists(replayFile));
+        assertFalse(Files.exists(deadLetterFile));
+    }
+
+    public void testLeftoverReplayFileIsReplayedWithoutDeadLetterFile() throws IOException {
+        Path replayFile = deadLetterFile.resolveSibling(deadLetterFile.getFileName() + ".replay");
+        Files.move(deadLetterFile, replayFile);
+        Files.writeString(replayFile, """
+                {"index":{"_id":"1"}}
+                {"name":"tech fleece jogger"}
+                """);
+
+        indexService().replayDeadLetters();
+
+        assertEquals(List.of("1"),
+                server.bulkRequests().get(0).stream().map(StubElasticsearchServer.BulkItem::id).toList());
+        assertFalse(Files.exists(replayFile));
+    }
+
+    public void testReplayWithoutDeadLetterFileDoesNothing() throws IOException {
+        Files.delete(deadLetterFile);
+
+        indexService().replayDeadLetters();
+
+        assertTrue(server.bulkRequests().isEmpty());
+    }
+
+    private IndexServiceImpl indexService() {
+        EsFieldsConfig config = config();
+        return new IndexServiceImpl(server.client(), config, new BulkIngestionPipeline(server.client(), config),
+                new NameEmbeddingEnricher(null, config));
+    }
+
+    private EsFieldsConfig config() {
+        EsFieldsConfig.Fields fields = new EsFieldsConfig.Fields();
+        fields.setName("name");
+        fields.setId("_id");
+
+        EsFieldsConfig.Index index = new EsFieldsConfig.Index();
+        index.setIndex("_index");
+        index.setIndexName("product_index");
+
+        EsFieldsConfig.Bulk bulk = new EsFieldsConfig.Bulk();
+        bulk.setMaxActions(100);
+        bulk.setMaxSizeInBytes(5L * 1024 * 1024);
+        bulk.setConcurrentRequests(1);
+        bulk.setMaxRetries(0);
+        bulk.setInitialBackoffMillis(10L);
+        bulk.setDeadLetterFile(deadLetterFile.toString());
+
+        EsFieldsConfig.Embedding embedding = new EsFieldsConfig.Embedding();
+        embedding.setEnabled(false);
+
+        EsFieldsConfig config = new EsFieldsConfig();
+        config.setFields(fields);
+        config.setIndex(index);
+        config.setBulk(bulk);
+        config.setEmbedding(embedding);
+        return config;
+    }
+}
@@ -1,42 +1,174 @@
 package org.example.config;
 
+import co.elastic.clients.elasticsearch.ElasticsearchAsyncClient;
 import co.elastic.clients.elasticsearch.ElasticsearchClient;
 import co.elastic.clients.json.jackson.JacksonJsonpMapper;
-import co.elastic.clients.transport.rest_client.RestClientTransport;
+import co.elastic.clients.transport.ElasticsearchTransport;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.http.HttpHost;
 import org.apache.http.auth.AuthScope;
 import org.apache.http.auth.UsernamePasswordCredentials;
 import org.apache.http.impl.client.BasicCredentialsProvider;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.nio.reactor.IOReactorException;
+import org.apache.http.pool.PoolStats;
+import org.elasticsearch.client.Node;
 import org.elasticsearch.client.RestClient;
 import org.elasticsearch.client.RestClientBuilder;
+import org.elasticsearch.client.sniff.ElasticsearchNodesSniffer;
+import org.elasticsearch.client.sniff.SniffOnFailureListener;
+import org.elasticsearch.client.sniff.Sniffer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.Arrays;
+import java.util.function.ToDoubleFunction;
+
 @Configuration
 @Data
+@Slf4j
 public class ElasticsearchConfig {
 
+    private static final String POOL_METRIC_PREFIX = "elasticsearch.client.pool.";
+
+    private static final String NODE_FAILURE_COUNTER = "elasticsearch.client.node.failures";
+
     private final EsFieldsConfig esFieldsConfig;
 
-    @Bean
-    public ElasticsearchClient elasticsearchClient() {
-        String user = esFieldsConfig.getProperty().getUser();
-        String password = esFieldsConfig.getProperty().getPassword();
-        String esHost = esFieldsConfig.getProperty().getEsHost();
+    private final SniffOnFailureListener sniffOnFailureListener = new SniffOnFailureListener();
 
-        RestClientBuilder builder = RestClient.builder(org.apache.http.HttpHost.create(esHost));
+    @Bean(destroyMethod = "close")
+    public RestClient elasticsearchRestClient(MeterRegistry meterRegistry) {
+        EsFieldsConfig.Property property = esFieldsConfig.getProperty();
+        String user = property.getUser();
+        String password = property.getPassword();
 
+        PoolingNHttpClientConnectionManager connectionManager = createConnectionManager(property);
+        registerPoolMetrics(meterRegistry, connectionManager);
+
+        BasicCredentialsProvider credentialsProvider;
         if (user != null && !user.isBlank() && password != null && !password.isBlank()) {
-            final BasicCredentialsProvider credentialsProvider = new BasicCredentialsProvider();
+            credentialsProvider = new BasicCredentialsProvider();
             credentialsProvider.setCredentials(AuthScope.ANY, new UsernamePasswordCredentials(user, password));
-            builder.setHttpClientConfigCallback(httpClientBuilder ->
-                    httpClientBuilder.setDefaultCredentialsProvider(credentialsProvider)
-            );
+        } else {
+            credentialsProvider = null;
         }
 
-        RestClient restClient = builder.build();
-        RestClientTransport transport = new RestClientTransport(restClient, new JacksonJsonpMapper());
-        return new ElasticsearchClient(transport);
+        RestClientBuilder builder = RestClient.builder(parseHosts(property.getEsHost()))
+                .setCompressionEnabled(Boolean.TRUE.equals(property.getCompressionEnabled()))
+                .setFailureListener(new RestClient.FailureListener() {
+                    @Override
+                    public void onFailure(Node node) {
+                        log.warn("Elasticsearch node {} failed and is marked dead", node.getHost());
+                        Counter.builder(NODE_FAILURE_COUNTER)
+                                .tag("host", node.getHost().toHostString())
+                                .register(meterRegistry)
+                                .increment();
+                        if (Boolean.TRUE.equals(property.getSnifferEnabled())) {
+                            sniffOnFailureListener.onFailure(node);
+                        }
+                    }
+                })
+                .setRequestConfigCallback(requestConfigBuilder -> requestConfigBuilder
+                        .setConnectTimeout((int) property.getConnectTimeout().toMillis())
+                        .setSocketTimeout((int) property.getSocketTimeout().toMillis())
+                        .setConnectionRequestTimeout((int) property.getConnectionRequestTimeout().toMillis()))
+                .setHttpClientConfigCallback(httpClientBuilder -> {
+                    httpClientBuilder
+                            .setConnectionManager(connectionManager)
+                            .setKeepAliveStrategy((response, context) -> property.getKeepAlive().toMillis());
+                    if (credentialsProvider != null) {
+                        httpClientBuilder.setDefaultCredentialsProvider(credentialsProvider);
+                    }
+                    return httpClientBuilder;
+                });
+
+        return builder.build();
+    }
+
+    /**
+     * Periodically replaces the configured hosts with the HTTP nodes of the cluster, and re-sniffs right after a node failure.
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "elasticsearch.property.snifferEnabled", havingValue = "true")
+    public Sniffer elasticsearchSniffer(RestClient elasticsearchRestClient) {
+        EsFieldsConfig.Property property = esFieldsConfig.getProperty();
+        ElasticsearchNodesSniffer.Scheme scheme = parseHosts(property.getEsHost())[0].getSchemeName().equals("https")
+                ? ElasticsearchNodesSniffer.Scheme.HTTPS
+                : ElasticsearchNodesSniffer.Scheme.HTTP;
+
+        Sniffer sniffer = Sniffer.builder(elasticsearchRestClient)
+                .setNodesSniffer(new ElasticsearchNodesSniffer(elasticsearchRestClient,
+                        ElasticsearchNodesSniffer.DEFAULT_SNIFF_REQUEST_TIMEOUT, scheme))
+                .setSniffIntervalMillis((int) property.getSniffInterval().toMillis())
+                .setSniffAfterFailureDelayMillis((int) property.getSniffAfterFailureDelay().toMillis())
+                .build();
+        sniffOnFailureListener.setSniffer(sniffer);
+        return sniffer;
+    }
+
+    /**
+     * Shared by the blocking and the async client, so both use the same connection pool. Blocking requests wait on
+     * the async path, see {@link NonPinningRestClientTransport}.
+     */
+    @Bean
+    public ElasticsearchTransport elasticsearchTransport(RestClient elasticsearchRestClient) {
+        return new NonPinningRestClientTransport(elasticsearchRestClient, new JacksonJsonpMapper());
+    }
+
+    @Bean
+    public ElasticsearchClient elasticsearchClient(ElasticsearchTransport elasticsearchTransport) {
+        return new ElasticsearchClient(elasticsearchTransport);
+    }
+
+    @Bean
+    public ElasticsearchAsyncClient elasticsearchAsyncClient(ElasticsearchTransport elasticsearchTransport) {
+        return new ElasticsearchAsyncClient(elasticsearchTransport);
+    }
+
+    private static PoolingNHttpClientConnectionManager createConnectionManager(EsFieldsConfig.Property property) {
+        IOReactorConfig ioReactorConfig = IOReactorConfig.custom()
+                .setIoThreadCount(property.getIoThreadCount())
+                .setConnectTimeout((int) property.getConnectTimeout().toMillis())
+                .setSoTimeout((int) property.getSocketTimeout().toMillis())
+                .setSoKeepAlive(true)
+                .build();
+        try {
+            PoolingNHttpClientConnectionManager connectionManager =
+                    new PoolingNHttpClientConnectionManager(new DefaultConnectingIOReactor(ioReactorConfig));
+            connectionManager.setDefaultMaxPerRoute(property.getMaxConnPerRoute());
+            connectionManager.setMaxTotal(property.getMaxConnTotal());
+            return connectionManager;
+        } catch (IOReactorException e) {
+            throw new IllegalStateException("Elasticsearch I/O reactor could not be created", e);
+        }
+    }
+
+    private static void registerPoolMetrics(MeterRegistry meterRegistry, PoolingNHttpClientConnectionManager connectionManager) {
+        registerPoolGauge(meterRegistry, connectionManager, "leased", PoolStats::getLeased);
+        registerPoolGauge(meterRegistry, connectionManager, "available", PoolStats::getAvailable);
+        registerPoolGauge(meterRegistry, connectionManager, "pending", PoolStats::getPending);
+        registerPoolGauge(meterRegistry, connectionManager, "max", PoolStats::getMax);
     }
-}
 
+    private static void registerPoolGauge(MeterRegistry meterRegistry, PoolingNHttpClientConnectionManager connectionManager,
+                                          String name, ToDoubleFunction<PoolStats> value) {
+        Gauge.builder(POOL_METRIC_PREFIX + name, connectionManager, manager -> value.applyAsDouble(manager.getTotalStats()))
+                .register(meterRegistry);
+    }
+
+    private static HttpHost[] parseHosts(String esHost) {
+        return Arrays.stream(esHost.split(","))
+                .map(String::trim)
+                .filter(host -> !host.isEmpty())
+                .map(HttpHost::create)
+                .toArray(HttpHost[]::new);
+    }
+}
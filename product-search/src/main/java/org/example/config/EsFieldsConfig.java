@@ -1,9 +1,15 @@
 package org.example.config;
 
 import lombok.Data;
+import org.example.enums.FacetMode;
+import org.example.enums.StageExecutionMode;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
 @Component
 @ConfigurationProperties(prefix = "elasticsearch")
 @Data
@@ -16,12 +22,34 @@ public class EsFieldsConfig {
     private Index index;
     private Nested nested;
     private OpenAI openAI;
+    private AIResilience aiResilience;
+    private AIAsync aiAsync;
+    private Vector vector;
+    private Search search;
+    private Concept concept;
+    private ResultCache resultCache;
+    private FacetCache facetCache;
+    private RerankCache rerankCache;
 
     @Data
     public static class Property {
+        /**
+         * One or more comma separated hosts.
+         */
         private String esHost;
         private String user;
         private String password;
+        private Integer maxConnPerRoute;
+        private Integer maxConnTotal;
+        private Integer ioThreadCount;
+        private Duration connectTimeout;
+        private Duration socketTimeout;
+        private Duration connectionRequestTimeout;
+        private Duration keepAlive;
+        private Boolean compressionEnabled;
+        private Boolean snifferEnabled;
+        private Duration sniffInterval;
+        private Duration sniffAfterFailureDelay;
     }
 
     @Data
@@ -29,6 +57,16 @@ public class EsFieldsConfig {
         private Integer defaultQuerySize;
         private Integer defaultQueryPage;
         private Integer getAllSize;
+        /**
+         * Product fields returned by default and the only ones a request may ask for.
+         */
+        private List<String> sourceFields;
+        private List<String> sourceExcludes;
+        private Boolean docValueFieldsEnabled;
+        /**
+         * Product field to the doc-values field it is read from when {@code docValueFieldsEnabled} is set.
+         */
+        private Map<String, String> docValueFields;
     }
 
     @Data
@@ -60,6 +98,7 @@ public class EsFieldsConfig {
         private String productIndex;
         private String conceptIndex;
         private String searchTerms;
+        private Duration versionPollInterval;
     }
 
     @Data
@@ -72,5 +111,85 @@ public class EsFieldsConfig {
         private String version;
         private Double temperature;
         private Integer maxTokens;
+        private String embeddingModel;
+        private Integer maxCandidates;
+        private Integer maxPromptTokens;
+    }
+
+    @Data
+    public static class AIAsync {
+        private Boolean enabled;
+        private Long maximumPending;
+        private Duration resultTtl;
+        private Duration sseTimeout;
+    }
+
+    @Data
+    public static class AIResilience {
+        private Duration timeout;
+        private Integer maxConcurrentCalls;
+        private Integer callThreads;
+        private Float failureRateThreshold;
+        private Float slowCallRateThreshold;
+        private Duration slowCallDurationThreshold;
+        private Integer slidingWindowSize;
+        private Integer minimumNumberOfCalls;
+        private Duration waitDurationInOpenState;
+        private Integer permittedCallsInHalfOpenState;
+    }
+
+    @Data
+    public static class Vector {
+        private Boolean enabled;
+        private String field;
+        private Integer k;
+        private Integer numCandidates;
+        private Float similarity;
+        private Boolean hybridEnabled;
+        private Integer rankWindowSize;
+        private Integer rankConstant;
+        private Long queryCacheSize;
+        private Duration queryCacheTtl;
+    }
+
+    @Data
+    public static class Search {
+        private StageExecutionMode executionMode;
+        private Duration hedgeDelay;
+        private String pitKeepAlive;
+        private FacetMode facetMode;
+        private Double debugLogSampleRate;
+        private Boolean coalescingEnabled;
+    }
+
+    @Data
+    public static class Concept {
+        private Integer pageSize;
+        private String keepAlive;
+        private Duration refreshInterval;
+        private Boolean fallbackEnabled;
+    }
+
+    @Data
+    public static class ResultCache {
+        private Boolean enabled;
+        private Long maximumSize;
+        private Duration ttl;
+    }
+
+    @Data
+    public static class FacetCache {
+        private Boolean enabled;
+        private Long maximumSize;
+        private Duration ttl;
+    }
+
+    @Data
+    public static class RerankCache {
+        private Boolean enabled;
+        private Long maximumSize;
+        private Duration ttl;
+        private String persistenceFile;
+        private Duration flushInterval;
     }
 }
@@ -0,0 +1,82 @@
+package org.example.config;
+
+import co.elastic.clients.json.JsonpMapper;
+import co.elastic.clients.transport.ElasticsearchTransportBase;
+import co.elastic.clients.transport.TransportOptions;
+import co.elastic.clients.transport.http.TransportHttpClient;
+import co.elastic.clients.transport.instrumentation.Instrumentation;
+import co.elastic.clients.transport.rest_client.RestClientHttpClient;
+import org.elasticsearch.client.RestClient;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * {@code RestClientTransport} whose blocking requests go through the async path of the {@link RestClient} and wait
+ * on the returned {@link CompletableFuture}.
+ * <p>
+ * The blocking {@code RestClient.performRequest} waits in {@code BasicFuture.get}, an {@code Object.wait} inside a
+ * {@code synchronized} method, which pins the carrier of a virtual thread until ES answers. Once every carrier is
+ * pinned that way, the virtual thread holding the lock of the connection pool can no longer be scheduled, the I/O
+ * dispatchers block on that lock and the responses the pinned threads wait for are never delivered. Waiting on the
+ * {@link CompletableFuture} parks the virtual thread instead.
+ */
+public class NonPinningRestClientTransport extends ElasticsearchTransportBase {
+
+    private final RestClient restClient;
+
+    public NonPinningRestClientTransport(RestClient restClient, JsonpMapper jsonpMapper) {
+        this(restClient, jsonpMapper, null, null);
+    }
+
+    private NonPinningRestClientTransport(RestClient restClient, JsonpMapper jsonpMapper,
+                                          TransportOptions options, Instrumentation instrumentation) {
+        super(new NonPinningRestClientHttpClient(restClient), options, jsonpMapper, instrumentation);
+        this.restClient = restClient;
+    }
+
+    public RestClient restClient() {
+        return restClient;
+    }
+
+    @Override
+    protected ElasticsearchTransportBase cloneWith(TransportOptions options, JsonpMapper jsonpMapper, Instrumentation instrumentation) {
+        return new NonPinningRestClientTransport(restClient,
+                jsonpMapper != null ? jsonpMapper : this.mapper,
+                options != null ? options : this.transportOptions,
+                instrumentation != null ? instrumentation : this.instrumentation);
+    }
+
+    private static class NonPinningRestClientHttpClient extends RestClientHttpClient {
+
+        private NonPinningRestClientHttpClient(RestClient restClient) {
+            super(restClient);
+        }
+
+        @Override
+        public Response performRequest(String endpointId, Node node, Request request, TransportOptions options) throws IOException {
+            Future<TransportHttpClient.Response> response = performRequestAsync(endpointId, node, request, options);
+            try {
+                return response.get();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException ioException) {
+                    throw ioException;
+                }
+                if (e.getCause() instanceof RuntimeException runtimeException) {
+                    throw runtimeException;
+                }
+                if (e.getCause() instanceof Error error) {
+                    throw error;
+                }
+                throw new IOException(e.getCause());
+            } catch (InterruptedException e) {
+                response.cancel(true);
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Elasticsearch request " + endpointId + " was interrupted");
+            }
+        }
+    }
+}
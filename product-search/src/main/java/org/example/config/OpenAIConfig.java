@@ -2,14 +2,73 @@ package org.example.config;
 
 import com.openai.client.OpenAIClient;
 import com.openai.client.okhttp.OpenAIOkHttpClient;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.example.exception.AISearchParsingException;
+import org.example.exception.NoContentAISearchException;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+
 @Configuration
+@Slf4j
 public class OpenAIConfig {
 
+    private static final String OPENAI = "openai";
+
+    /**
+     * SDK retries are disabled: the timeout of a call applies to every attempt, so retries would multiply the
+     * per-call deadline, and failures are already handled by the circuit breaker and the stage fallbacks.
+     */
     @Bean
     public OpenAIClient openAIClient() {
-        return OpenAIOkHttpClient.fromEnv();
+        return OpenAIOkHttpClient.builder()
+                .fromEnv()
+                .maxRetries(0)
+                .build();
+    }
+
+    @Bean
+    public CircuitBreaker openAICircuitBreaker(EsFieldsConfig esFieldsConfig, MeterRegistry meterRegistry) {
+        EsFieldsConfig.AIResilience resilience = esFieldsConfig.getAiResilience();
+        CircuitBreakerRegistry registry = CircuitBreakerRegistry.of(CircuitBreakerConfig.custom()
+                .failureRateThreshold(resilience.getFailureRateThreshold())
+                .slowCallDurationThreshold(resilience.getSlowCallDurationThreshold())
+                .slowCallRateThreshold(resilience.getSlowCallRateThreshold())
+                .slidingWindowSize(resilience.getSlidingWindowSize())
+                .minimumNumberOfCalls(resilience.getMinimumNumberOfCalls())
+                .waitDurationInOpenState(resilience.getWaitDurationInOpenState())
+                .permittedNumberOfCallsInHalfOpenState(resilience.getPermittedCallsInHalfOpenState())
+                .ignoreExceptions(AISearchParsingException.class, NoContentAISearchException.class)
+                .build());
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(registry).bindTo(meterRegistry);
+
+        CircuitBreaker circuitBreaker = registry.circuitBreaker(OPENAI);
+        circuitBreaker.getEventPublisher().onStateTransition(event -> {
+            log.warn("OpenAI circuit breaker {}", event.getStateTransition());
+            meterRegistry.counter("openai.circuitbreaker.transitions",
+                    "from", event.getStateTransition().getFromState().name(),
+                    "to", event.getStateTransition().getToState().name()).increment();
+        });
+        return circuitBreaker;
+    }
+
+    @Bean
+    public Bulkhead openAIBulkhead(EsFieldsConfig esFieldsConfig, MeterRegistry meterRegistry) {
+        BulkheadRegistry registry = BulkheadRegistry.of(BulkheadConfig.custom()
+                .maxConcurrentCalls(esFieldsConfig.getAiResilience().getMaxConcurrentCalls())
+                .maxWaitDuration(Duration.ZERO)
+                .build());
+        TaggedBulkheadMetrics.ofBulkheadRegistry(registry).bindTo(meterRegistry);
+        return registry.bulkhead(OPENAI);
     }
 }
@@ -0,0 +1,16 @@
+package org.example.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Configuration
+public class SearchExecutorConfig {
+
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService searchStageExecutorService() {
+        return Executors.newVirtualThreadPerTaskExecutor();
+    }
+}
@@ -1,26 +1,74 @@
 package org.example.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.example.config.EsFieldsConfig;
 import org.example.dto.ProductRequestDTO;
 import org.example.dto.ProductResponseDTO;
 import org.example.service.ProductService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping(value = "v1/products")
 @RequiredArgsConstructor
 public class ProductController {
 
+    private static final String RERANK_EVENT = "rerank";
+
     private final ProductService productService;
 
+    private final EsFieldsConfig esFieldsConfig;
+
     @PostMapping
     public ProductResponseDTO getSearchProductsResponse(@RequestBody ProductRequestDTO productRequestDTO) throws IOException {
         return productService.getSearchProductResponse(productRequestDTO);
     }
+
+    @PostMapping("/async")
+    public CompletableFuture<ProductResponseDTO> getSearchProductsResponseAsync(@RequestBody ProductRequestDTO productRequestDTO) {
+        return productService.getSearchProductResponseAsync(productRequestDTO);
+    }
+
+    @GetMapping("/rerank/{continuationToken}")
+    public ResponseEntity<ProductResponseDTO> getRerankedProductsResponse(@PathVariable String continuationToken) {
+        return productService.getRerankedProductResponse(continuationToken)
+                .map(rerank -> rerank.isDone()
+                        ? ResponseEntity.ok(rerank.join())
+                        : ResponseEntity.accepted().<ProductResponseDTO>build())
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @GetMapping(value = "/rerank/{continuationToken}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamRerankedProductsResponse(@PathVariable String continuationToken) {
+        CompletableFuture<ProductResponseDTO> rerank = productService.getRerankedProductResponse(continuationToken)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+
+        SseEmitter emitter = new SseEmitter(esFieldsConfig.getAiAsync().getSseTimeout().toMillis());
+        rerank.whenComplete((productResponseDTO, error) -> {
+            if (error != null) {
+                emitter.completeWithError(error);
+                return;
+            }
+            try {
+                emitter.send(SseEmitter.event().name(RERANK_EVENT).data(productResponseDTO));
+                emitter.complete();
+            } catch (IOException e) {
+                emitter.completeWithError(e);
+            }
+        });
+        return emitter;
+    }
 }
 
@@ -0,0 +1,10 @@
+package org.example.dto;
+
+import java.util.List;
+
+/**
+ * Concepts found in a query, and the query tokens not covered by any of them, in query order.
+ */
+public record ConceptMatch(List<ConceptDocDTO> concepts,
+                           List<String> unmatchedTokens) {
+}
@@ -2,12 +2,15 @@ package org.example.dto;
 
 import lombok.Builder;
 
+import java.util.List;
 import java.util.Objects;
 
 @Builder
 public record ProductRequestDTO(String queryText,
                                 Integer size,
-                                Integer page) {
+                                Integer page,
+                                List<String> fields,
+                                String cursor) {
 
     public Integer getValidatedSize(Integer defaultSize) {
         if (Objects.isNull(this.size)) {
@@ -1,5 +1,6 @@
 package org.example.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Builder;
 import lombok.Data;
 import org.example.enums.SearchMessage;
@@ -8,12 +9,16 @@ import java.util.Collections;
 import java.util.List;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 public class ProductResponseDTO {
     private Long totalHits;
     private String message;
     private List<ProductDTO> productDTOList;
     private FacetDTO facetDTO;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String continuationToken;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String cursor;
 
     public static ProductResponseDTO buildEmptyProductResponseDTO() {
         return ProductResponseDTO.builder()
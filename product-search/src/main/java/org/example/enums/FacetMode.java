@@ -0,0 +1,6 @@
+package org.example.enums;
+
+public enum FacetMode {
+    EVERY_STAGE,
+    WINNING_STAGE
+}
@@ -3,5 +3,6 @@ package org.example.enums;
 public enum QueryType {
     STRICT,
     CATEGORY_ONLY_STRICT_MATCH,
+    VECTOR,
     AI_SEARCH
 }
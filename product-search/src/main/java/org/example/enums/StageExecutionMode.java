@@ -0,0 +1,7 @@
+package org.example.enums;
+
+public enum StageExecutionMode {
+    SEQUENTIAL,
+    MSEARCH,
+    HEDGED
+}
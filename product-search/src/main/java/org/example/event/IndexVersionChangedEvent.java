@@ -0,0 +1,9 @@
+package org.example.event;
+
+/**
+ * Published when the physical index behind an index name or alias changed, e.g. after the indexer swapped the alias.
+ */
+public record IndexVersionChangedEvent(String indexName,
+                                       String previousVersion,
+                                       String currentVersion) {
+}
@@ -0,0 +1,12 @@
+package org.example.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.GONE)
+public class ExpiredCursorException extends RuntimeException {
+
+    public ExpiredCursorException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -1,8 +1,15 @@
 package org.example.mappers;
 
 import co.elastic.clients.elasticsearch._types.aggregations.Aggregate;
-import co.elastic.clients.elasticsearch.core.SearchResponse;
 import co.elastic.clients.elasticsearch.core.search.Hit;
+import co.elastic.clients.elasticsearch.core.search.ResponseBody;
+import co.elastic.clients.json.JsonData;
+import jakarta.json.JsonArray;
+import jakarta.json.JsonNumber;
+import jakarta.json.JsonString;
+import jakarta.json.JsonValue;
+import lombok.RequiredArgsConstructor;
+import org.example.config.EsFieldsConfig;
 import org.example.dto.FacetBucketDTO;
 import org.example.dto.FacetDTO;
 import org.example.dto.ProductDTO;
@@ -15,18 +22,64 @@ import java.util.Map;
 import java.util.Objects;
 
 @Component
+@RequiredArgsConstructor
 public class ProductMapper {
     private final String PRICE_RANGES = "price_ranges";
     private final String BRAND = "brand";
+    private final String CATEGORY = "category";
+    private final String PRICE = "price";
 
+    private final EsFieldsConfig esFieldsConfig;
 
-    public List<ProductDTO> mapHitsToProducts(SearchResponse<ProductDTO> response) {
+    public List<ProductDTO> mapHitsToProducts(ResponseBody<ProductDTO> response) {
         return response.hits().hits().stream()
-                .map(Hit::source)
+                .map(this::mapHitToProduct)
                 .filter(Objects::nonNull)
                 .toList();
     }
 
+    /**
+     * Product from the hit's {@code _source}, completed with the fields that were requested as doc values.
+     */
+    private ProductDTO mapHitToProduct(Hit<ProductDTO> hit) {
+        Map<String, JsonData> docValues = hit.fields();
+        if (docValues == null || docValues.isEmpty()) {
+            return hit.source();
+        }
+
+        ProductDTO.ProductDTOBuilder product = hit.source() != null ? hit.source().toBuilder() : ProductDTO.builder();
+        esFieldsConfig.getRequest().getDocValueFields().forEach((field, docValueField) -> {
+            JsonValue value = firstValue(docValues.get(docValueField));
+            if (value == null) {
+                return;
+            }
+            switch (field) {
+                case BRAND -> product.brand(((JsonString) value).getString());
+                case CATEGORY -> product.category(((JsonString) value).getString());
+                case PRICE -> product.price(toIndexedPrecision(((JsonNumber) value).doubleValue()));
+                default -> {
+                }
+            }
+        });
+        return product.build();
+    }
+
+    /**
+     * {@code price} is mapped as {@code float}, so its doc value comes back widened to double (34.99 as
+     * 34.9900016784668); the shortest decimal representation of the float is the value that was indexed.
+     */
+    private static double toIndexedPrecision(double floatDocValue) {
+        return Double.parseDouble(Float.toString((float) floatDocValue));
+    }
+
+    private static JsonValue firstValue(JsonData docValue) {
+        if (docValue == null) {
+            return null;
+        }
+        JsonArray values = docValue.toJson().asJsonArray();
+        return values.isEmpty() ? null : values.get(0);
+    }
+
     public FacetDTO mapAggregationsToFacets(Map<String, Aggregate> aggregations) {
         Map<String, List<FacetBucketDTO>> facets = new HashMap<>();
 
@@ -55,7 +108,7 @@ public class ProductMapper {
         return FacetDTO.builder().facetBucketDTO(facets).build();
     }
 
-    public ProductResponseDTO toProductResponseDTO(SearchResponse<ProductDTO> response) {
+    public ProductResponseDTO toProductResponseDTO(ResponseBody<ProductDTO> response) {
         List<ProductDTO> products = mapHitsToProducts(response);
         FacetDTO facetDTO = mapAggregationsToFacets(response.aggregations());
 
@@ -0,0 +1,10 @@
+package org.example.service;
+
+import org.example.dto.ConceptMatch;
+
+import java.util.List;
+
+public interface ConceptDictionaryService {
+
+    ConceptMatch matchConcepts(List<String> tokens);
+}
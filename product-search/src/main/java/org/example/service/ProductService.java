@@ -4,7 +4,13 @@ import org.example.dto.ProductRequestDTO;
 import org.example.dto.ProductResponseDTO;
 
 import java.io.IOException;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 public interface ProductService {
   ProductResponseDTO getSearchProductResponse(ProductRequestDTO productRequestDTO) throws IOException;
+
+  CompletableFuture<ProductResponseDTO> getSearchProductResponseAsync(ProductRequestDTO productRequestDTO);
+
+  Optional<CompletableFuture<ProductResponseDTO>> getRerankedProductResponse(String continuationToken);
 }
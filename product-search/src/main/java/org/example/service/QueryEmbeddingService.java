@@ -0,0 +1,8 @@
+package org.example.service;
+
+import java.util.List;
+
+public interface QueryEmbeddingService {
+
+    List<Float> embedQuery(String queryText);
+}
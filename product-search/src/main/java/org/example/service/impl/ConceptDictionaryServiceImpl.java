@@ -0,0 +1,239 @@
+package org.example.service.impl;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.FieldValue;
+import co.elastic.clients.elasticsearch._types.SortOrder;
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import co.elastic.clients.elasticsearch._types.query_dsl.TermsQueryField;
+import co.elastic.clients.elasticsearch.core.SearchResponse;
+import co.elastic.clients.elasticsearch.core.search.Hit;
+import co.elastic.clients.elasticsearch.indices.IndicesStatsResponse;
+import co.elastic.clients.elasticsearch.indices.stats.IndexStats;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.config.EsFieldsConfig;
+import org.example.dto.ConceptDocDTO;
+import org.example.dto.ConceptMatch;
+import org.example.exception.SearchServiceUnavailableException;
+import org.example.service.ConceptDictionaryService;
+import org.example.utils.QueryNormalizer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * In-memory copy of {@code concept_index}: a {@link ConceptTrie} of the search terms, normalized like the query
+ * tokens by {@link QueryNormalizer}, so that multi-word terms are matched as phrases.
+ * <p>
+ * The dictionary is loaded with a point in time and {@code search_after} at startup, and reloaded in the
+ * background whenever the fingerprint of the concept index (uuid and document/indexing counters of the
+ * concrete index behind the name or alias) changes. Until the first successful load, lookups go to ES.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ConceptDictionaryServiceImpl implements ConceptDictionaryService {
+
+    private static final String SHARD_DOC = "_shard_doc";
+
+    private final ElasticsearchClient elasticsearchClient;
+
+    private final EsFieldsConfig esFieldsConfig;
+
+    private volatile ConceptTrie conceptTrie;
+
+    private volatile String indexFingerprint;
+
+    @PostConstruct
+    public void init() {
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            log.warn("Concept dictionary could not be loaded, concept lookups go to {} until the next refresh",
+                    esFieldsConfig.getIndex().getConceptIndex(), e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${elasticsearch.concept.refreshInterval}",
+            initialDelayString = "${elasticsearch.concept.refreshInterval}")
+    public void scheduledRefresh() {
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            log.warn("Concept dictionary refresh failed, keeping the loaded version", e);
+        }
+    }
+
+    /**
+     * Matches the longest concept term at every token. With the fallback enabled, the tokens left unmatched are
+     * looked up in ES as single terms.
+     */
+    @Override
+    public ConceptMatch matchConcepts(List<String> tokens) {
+        ConceptTrie trie = conceptTrie;
+        if (trie == null) {
+            return toConceptMatch(tokens, List.of(), searchConcepts(tokens));
+        }
+
+        ConceptMatch conceptMatch = trie.match(tokens);
+        if (conceptMatch.unmatchedTokens().isEmpty() || !Boolean.TRUE.equals(esFieldsConfig.getConcept().getFallbackEnabled())) {
+            return conceptMatch;
+        }
+        return toConceptMatch(conceptMatch.unmatchedTokens(), conceptMatch.concepts(), searchConcepts(conceptMatch.unmatchedTokens()));
+    }
+
+    /**
+     * Adds the concepts found in ES for the given tokens; the tokens contained in none of their search terms stay unmatched.
+     */
+    private static ConceptMatch toConceptMatch(List<String> tokens, List<ConceptDocDTO> matchedConcepts, List<ConceptDocDTO> searchedConcepts) {
+        if (searchedConcepts.isEmpty()) {
+            return new ConceptMatch(matchedConcepts, tokens);
+        }
+
+        Set<String> searchTerms = new HashSet<>();
+        for (ConceptDocDTO conceptDocDTO : searchedConcepts) {
+            if (conceptDocDTO.searchTerms() != null) {
+                conceptDocDTO.searchTerms().forEach(searchTerm -> searchTerms.add(QueryNormalizer.normalize(searchTerm).text()));
+            }
+        }
+
+        Set<ConceptDocDTO> concepts = new LinkedHashSet<>(matchedConcepts);
+        concepts.addAll(searchedConcepts);
+        return new ConceptMatch(List.copyOf(concepts), tokens.stream().filter(token -> !searchTerms.contains(token)).toList());
+    }
+
+    private void refresh() {
+        String fingerprint = readIndexFingerprint();
+        if (conceptTrie != null && fingerprint.equals(indexFingerprint)) {
+            return;
+        }
+
+        ConceptTrie trie = loadDictionary();
+        conceptTrie = trie;
+        indexFingerprint = fingerprint;
+        log.info("Concept dictionary loaded: {} search terms, index version {}", trie.size(), fingerprint);
+    }
+
+    private String readIndexFingerprint() {
+        IndicesStatsResponse stats;
+        try {
+            stats = elasticsearchClient.indices().stats(s -> s
+                    .index(esFieldsConfig.getIndex().getConceptIndex())
+                    .metric("docs", "indexing"));
+        } catch (IOException e) {
+            throw new SearchServiceUnavailableException(e.getMessage());
+        }
+
+        StringBuilder fingerprint = new StringBuilder();
+        new TreeMap<>(stats.indices()).forEach((indexName, indexStats) -> {
+            IndexStats primaries = indexStats.primaries();
+            fingerprint.append(indexName).append(':').append(indexStats.uuid());
+            if (primaries != null && primaries.docs() != null) {
+                fingerprint.append(':').append(primaries.docs().count());
+            }
+            if (primaries != null && primaries.indexing() != null) {
+                fingerprint.append(':').append(primaries.indexing().indexTotal())
+                        .append(':').append(primaries.indexing().deleteTotal());
+            }
+            fingerprint.append(';');
+        });
+        return fingerprint.toString();
+    }
+
+    private ConceptTrie loadDictionary() {
+        EsFieldsConfig.Concept concept = esFieldsConfig.getConcept();
+        ConceptTrie.Builder dictionary = ConceptTrie.builder();
+        String pitId = null;
+        try {
+            pitId = elasticsearchClient.openPointInTime(p -> p
+                    .index(esFieldsConfig.getIndex().getConceptIndex())
+                    .keepAlive(t -> t.time(concept.getKeepAlive()))).id();
+
+            List<FieldValue> searchAfter = null;
+            while (true) {
+                String currentPitId = pitId;
+                List<FieldValue> currentSearchAfter = searchAfter;
+                SearchResponse<ConceptDocDTO> page = elasticsearchClient.search(s -> {
+                    s.pit(p -> p.id(currentPitId).keepAlive(t -> t.time(concept.getKeepAlive())))
+                            .size(concept.getPageSize())
+                            .sort(so -> so.field(f -> f.field(SHARD_DOC).order(SortOrder.Asc)));
+                    if (currentSearchAfter != null) {
+                        s.searchAfter(currentSearchAfter);
+                    }
+                    return s;
+                }, ConceptDocDTO.class);
+
+                List<Hit<ConceptDocDTO>> hits = page.hits().hits();
+                for (Hit<ConceptDocDTO> hit : hits) {
+                    ConceptDocDTO conceptDocDTO = hit.source();
+                    if (conceptDocDTO == null || conceptDocDTO.searchTerms() == null) {
+                        continue;
+                    }
+                    for (String searchTerm : conceptDocDTO.searchTerms()) {
+                        dictionary.add(QueryNormalizer.normalize(searchTerm).text(), conceptDocDTO);
+                    }
+                }
+
+                if (hits.size() < concept.getPageSize()) {
+                    break;
+                }
+                pitId = Objects.requireNonNullElse(page.pitId(), pitId);
+                searchAfter = hits.get(hits.size() - 1).sort();
+            }
+        } catch (IOException e) {
+            throw new SearchServiceUnavailableException(e.getMessage());
+        } finally {
+            closePointInTime(pitId);
+        }
+
+        return dictionary.build();
+    }
+
+    private void closePointInTime(String pitId) {
+        if (pitId == null) {
+            return;
+        }
+        try {
+            elasticsearchClient.closePointInTime(c -> c.id(pitId));
+        } catch (IOException | RuntimeException e) {
+            log.warn("Point in time on {} could not be closed", esFieldsConfig.getIndex().getConceptIndex(), e);
+        }
+    }
+
+    private List<ConceptDocDTO> searchConcepts(List<String> terms) {
+        Query conceptTermsQuery = Query.of(q -> q
+                .terms(t -> t
+                        .field(esFieldsConfig.getIndex().getSearchTerms())
+                        .terms(TermsQueryField.of(f -> f
+                                .value(terms.stream().map(FieldValue::of).toList())
+                        ))
+                )
+        );
+
+        try {
+            return elasticsearchClient.search(
+                            s -> s
+                                    .index(esFieldsConfig.getIndex().getConceptIndex())
+                                    .query(conceptTermsQuery),
+                            ConceptDocDTO.class
+                    )
+                    .hits()
+                    .hits()
+                    .stream()
+                    .map(Hit::source)
+                    .filter(Objects::nonNull)
+                    .toList();
+        } catch (IOException e) {
+            log.error("Concept search failed", e);
+            throw new SearchServiceUnavailableException(e.getMessage());
+        }
+    }
+}
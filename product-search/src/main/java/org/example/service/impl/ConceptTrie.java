@@ -0,0 +1,133 @@
+package org.example.service.impl;
+
+import org.example.dto.ConceptDocDTO;
+import org.example.dto.ConceptMatch;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Token trie of the normalized concept search terms, so that multi-word terms like {@code tech fleece} match
+ * as a phrase. Matching takes the longest term starting at each query token, so it runs in
+ * O(query tokens x longest term) map lookups and only allocates the result.
+ */
+final class ConceptTrie {
+
+    private final Node root;
+
+    private final int size;
+
+    private ConceptTrie(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return number of search terms
+     */
+    int size() {
+        return size;
+    }
+
+    ConceptMatch match(List<String> tokens) {
+        Set<ConceptDocDTO> concepts = new LinkedHashSet<>();
+        List<String> unmatchedTokens = new ArrayList<>();
+        int tokenCount = tokens.size();
+        int start = 0;
+        while (start < tokenCount) {
+            Node node = root;
+            List<ConceptDocDTO> longestMatch = null;
+            int matchEnd = start;
+            for (int i = start; i < tokenCount && (node = node.child(tokens.get(i))) != null; i++) {
+                if (node.concepts != null) {
+                    longestMatch = node.concepts;
+                    matchEnd = i + 1;
+                }
+            }
+
+            if (longestMatch != null) {
+                concepts.addAll(longestMatch);
+                start = matchEnd;
+            } else {
+                unmatchedTokens.add(tokens.get(start));
+                start++;
+            }
+        }
+        return new ConceptMatch(List.copyOf(concepts), unmatchedTokens);
+    }
+
+    private static final class Node {
+
+        private Map<String, Node> children;
+
+        private List<ConceptDocDTO> concepts;
+
+        private Node child(String token) {
+            return children == null ? null : children.get(token);
+        }
+
+        private Node freeze() {
+            if (children != null) {
+                children.replaceAll((token, child) -> child.freeze());
+                children = Map.copyOf(children);
+            }
+            if (concepts != null) {
+                concepts = List.copyOf(new LinkedHashSet<>(concepts));
+            }
+            return this;
+        }
+    }
+
+    static final class Builder {
+
+        private final Node root = new Node();
+
+        private int size;
+
+        private Builder() {
+        }
+
+        /**
+         * @param normalizedTerm search term normalized like the query, i.e. tokens separated by single spaces
+         */
+        Builder add(String normalizedTerm, ConceptDocDTO conceptDocDTO) {
+            if (normalizedTerm.isEmpty()) {
+                return this;
+            }
+
+            Node node = root;
+            int start = 0;
+            while (start <= normalizedTerm.length()) {
+                int end = normalizedTerm.indexOf(' ', start);
+                if (end < 0) {
+                    end = normalizedTerm.length();
+                }
+                String token = normalizedTerm.substring(start, end);
+                if (node.children == null) {
+                    node.children = new HashMap<>();
+                }
+                node = node.children.computeIfAbsent(token, t -> new Node());
+                start = end + 1;
+            }
+
+            if (node.concepts == null) {
+                node.concepts = new ArrayList<>(1);
+                size++;
+            }
+            node.concepts.add(conceptDocDTO);
+            return this;
+        }
+
+        ConceptTrie build() {
+            return new ConceptTrie(root.freeze(), size);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package org.example.service.impl;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch.indices.GetIndexResponse;
+import co.elastic.clients.elasticsearch.indices.get.Feature;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.config.EsFieldsConfig;
+import org.example.event.IndexVersionChangedEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.TreeMap;
+
+/**
+ * Polls which physical index serves the product index name and publishes an {@link IndexVersionChangedEvent}
+ * when it changes, so that caches holding search results of the previous index can be dropped.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class IndexVersionMonitor {
+
+    private final ElasticsearchClient elasticsearchClient;
+
+    private final EsFieldsConfig esFieldsConfig;
+
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    private volatile String productIndexVersion;
+
+    @Scheduled(fixedDelayString = "${elasticsearch.index.versionPollInterval}")
+    public void checkProductIndexVersion() {
+        String productIndex = esFieldsConfig.getIndex().getProductIndex();
+        String currentVersion;
+        try {
+            currentVersion = readIndexVersion(productIndex);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not read the version of {}", productIndex, e);
+            return;
+        }
+
+        String previousVersion = productIndexVersion;
+        productIndexVersion = currentVersion;
+        if (previousVersion != null && !previousVersion.equals(currentVersion)) {
+            log.info("{} now points to {} (was {})", productIndex, currentVersion, previousVersion);
+            applicationEventPublisher.publishEvent(new IndexVersionChangedEvent(productIndex, previousVersion, currentVersion));
+        }
+    }
+
+    public String getProductIndexVersion() {
+        return productIndexVersion;
+    }
+
+    /**
+     * @return the concrete index names and uuids behind the given name or alias
+     */
+    private String readIndexVersion(String indexName) throws IOException {
+        GetIndexResponse response = elasticsearchClient.indices().get(g -> g
+                .index(indexName)
+                .features(Feature.Settings));
+
+        StringBuilder version = new StringBuilder();
+        new TreeMap<>(response.indices()).forEach((concreteIndex, indexState) -> {
+            version.append(concreteIndex);
+            if (indexState.settings() != null && indexState.settings().index() != null) {
+                version.append(':').append(indexState.settings().index().uuid());
+            }
+            version.append(';');
+        });
+        return version.toString();
+    }
+}
@@ -0,0 +1,60 @@
+package org.example.service.impl;
+
+import jakarta.annotation.PreDestroy;
+import org.example.config.EsFieldsConfig;
+import org.example.exception.AIServiceUnavailableException;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * Runs the blocking OpenAI SDK calls on a bounded pool of platform threads.
+ * <p>
+ * The SDK reads and parses the response body inside a Kotlin {@code synchronized} lazy, so a virtual thread making
+ * the call stays pinned to its carrier for the whole socket read ({@code -Djdk.tracePinnedThreads=full} reports
+ * {@code kotlin.SynchronizedLazyImpl.getValue <== monitors:1} under {@code EmbeddingService.create}). The request
+ * thread hands the call over and waits on its future instead, which unmounts it. Calls beyond the pool size wait
+ * in the queue of the pool.
+ */
+@Component
+public class OpenAICallExecutor {
+
+    private final ExecutorService openAICallExecutorService;
+
+    public OpenAICallExecutor(EsFieldsConfig esFieldsConfig) {
+        this.openAICallExecutorService = Executors.newFixedThreadPool(esFieldsConfig.getAiResilience().getCallThreads(),
+                Thread.ofPlatform().name("openai-call-", 0).daemon().factory());
+    }
+
+    /**
+     * @throws AIServiceUnavailableException if the waiting thread was interrupted; failures of the call itself
+     *                                        are rethrown as they are
+     */
+    public <T> T call(Supplier<T> call) {
+        Future<T> future = openAICallExecutorService.submit(call::get);
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new AIServiceUnavailableException(e.getCause().getMessage(), e.getCause());
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new AIServiceUnavailableException("OpenAI call was interrupted", e);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        openAICallExecutorService.shutdownNow();
+    }
+}
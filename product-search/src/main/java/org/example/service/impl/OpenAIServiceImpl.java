@@ -1,17 +1,25 @@
 package org.example.service.impl;
 
 import com.openai.client.OpenAIClient;
+import com.openai.core.RequestOptions;
+import com.openai.errors.OpenAIException;
 import com.openai.models.chat.completions.ChatCompletion;
 import com.openai.models.chat.completions.ChatCompletionCreateParams;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
 import lombok.RequiredArgsConstructor;
 import org.example.config.EsFieldsConfig;
 import org.example.dto.AICandidateDoc;
+import org.example.exception.AIServiceUnavailableException;
 import org.example.exception.NoContentAISearchException;
 import org.example.service.OpenAIService;
 import org.example.utils.AIPromptUtil;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Optional;
 
 import static org.example.utils.JsonUtil.parseIds;
 
@@ -19,13 +27,62 @@ import static org.example.utils.JsonUtil.parseIds;
 @RequiredArgsConstructor
 public class OpenAIServiceImpl implements OpenAIService {
 
+    private static final String RERANK_OPERATION = "rerank";
+
     private final OpenAIClient openAIClient;
 
     private final EsFieldsConfig esFieldsConfig;
 
+    private final RerankResultCache rerankResultCache;
+
+    private final CircuitBreaker openAICircuitBreaker;
+
+    private final Bulkhead openAIBulkhead;
+
+    private final SearchMetrics searchMetrics;
+
+    private final OpenAICallExecutor openAICallExecutor;
+
 
     @Override
-    public List<String> getDocIdsIOpenAI(String userQuery, List<AICandidateDoc> aiCandidateDocs) {
+    public List<String> getDocIdsIOpenAI(String userQuery, List<AICandidateDoc> candidateDocs) {
+        List<AICandidateDoc> aiCandidateDocs =
+                AIPromptUtil.limitToTokenBudget(userQuery, candidateDocs, esFieldsConfig.getOpenAI().getMaxPromptTokens());
+
+        if (!rerankResultCache.isEnabled()) {
+            return rerankWithinLimits(userQuery, aiCandidateDocs);
+        }
+
+        String cacheKey = rerankResultCache.key(esFieldsConfig.getOpenAI().getVersion(), userQuery, aiCandidateDocs);
+        Optional<List<String>> cachedDocIds = rerankResultCache.get(cacheKey);
+        if (cachedDocIds.isPresent()) {
+            return cachedDocIds.get();
+        }
+
+        List<String> docIds = rerankWithinLimits(userQuery, aiCandidateDocs);
+        rerankResultCache.put(cacheKey, docIds);
+        return docIds;
+    }
+
+    /**
+     * Runs the rerank with a per-call deadline, rejecting it right away when all bulkhead permits are taken
+     * or the circuit breaker is open.
+     *
+     * @throws AIServiceUnavailableException if the call was not permitted, timed out or failed on the OpenAI side
+     */
+    private List<String> rerankWithinLimits(String userQuery, List<AICandidateDoc> aiCandidateDocs) {
+        try {
+            return Bulkhead.decorateSupplier(openAIBulkhead,
+                    CircuitBreaker.decorateSupplier(openAICircuitBreaker,
+                            () -> rerank(userQuery, aiCandidateDocs))).get();
+        } catch (CallNotPermittedException | BulkheadFullException e) {
+            throw new AIServiceUnavailableException(e.getMessage(), e);
+        } catch (OpenAIException e) {
+            throw new AIServiceUnavailableException("OpenAI rerank failed: " + e.getMessage(), e);
+        }
+    }
+
+    private List<String> rerank(String userQuery, List<AICandidateDoc> aiCandidateDocs) {
         String aiPrompt = AIPromptUtil.buildAIPrompt(userQuery, aiCandidateDocs);
 
         ChatCompletionCreateParams params =
@@ -36,8 +93,21 @@ public class OpenAIServiceImpl implements OpenAIService {
                         .addUserMessage(aiPrompt)
                         .build();
 
-        ChatCompletion completion =
-                openAIClient.chat().completions().create(params);
+        ChatCompletion completion;
+        long startNanos = System.nanoTime();
+        String outcome = "error";
+        try {
+            completion = openAICallExecutor.call(() -> openAIClient.chat().completions().create(params, RequestOptions.builder()
+                    .timeout(esFieldsConfig.getAiResilience().getTimeout())
+                    .build()));
+            outcome = "success";
+        } finally {
+            searchMetrics.recordOpenAICall(RERANK_OPERATION, startNanos, outcome);
+        }
+        completion.usage().ifPresent(usage -> {
+            searchMetrics.recordOpenAITokens(RERANK_OPERATION, "prompt", usage.promptTokens());
+            searchMetrics.recordOpenAITokens(RERANK_OPERATION, "completion", usage.completionTokens());
+        });
 
         String content =
                 completion.choices().get(0).message().content().orElseThrow(() -> new NoContentAISearchException("No content found"));
@@ -1,34 +1,60 @@
 package org.example.service.impl;
 
+import co.elastic.clients.elasticsearch.ElasticsearchAsyncClient;
 import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.ElasticsearchException;
 import co.elastic.clients.elasticsearch._types.FieldValue;
+import co.elastic.clients.elasticsearch._types.Retriever;
+import co.elastic.clients.elasticsearch._types.aggregations.Aggregation;
 import co.elastic.clients.elasticsearch._types.SortOrder;
+import co.elastic.clients.elasticsearch._types.query_dsl.FieldAndFormat;
 import co.elastic.clients.elasticsearch._types.query_dsl.Query;
-import co.elastic.clients.elasticsearch._types.query_dsl.TermsQueryField;
+import co.elastic.clients.elasticsearch.core.MsearchRequest;
+import co.elastic.clients.elasticsearch.core.MsearchResponse;
 import co.elastic.clients.elasticsearch.core.SearchRequest;
 import co.elastic.clients.elasticsearch.core.SearchResponse;
+import co.elastic.clients.elasticsearch.core.msearch.MultiSearchResponseItem;
+import co.elastic.clients.elasticsearch.core.msearch.RequestItem;
 import co.elastic.clients.elasticsearch.core.search.Hit;
+import co.elastic.clients.elasticsearch.core.search.ResponseBody;
+import co.elastic.clients.elasticsearch.core.search.SourceConfig;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.example.config.EsFieldsConfig;
 import org.example.dto.ProductResponseDTO;
 import org.example.dto.AICandidateDoc;
-import org.example.dto.ConceptDocDTO;
+import org.example.dto.ConceptMatch;
 import org.example.dto.ProductRequestDTO;
 import org.example.dto.ProductDTO;
+import org.example.enums.FacetMode;
 import org.example.enums.QueryType;
 import org.example.enums.SearchMessage;
+import org.example.enums.StageExecutionMode;
+import org.example.exception.AIServiceUnavailableException;
+import org.example.exception.ExpiredCursorException;
+import org.example.exception.InvalidCursorException;
 import org.example.exception.SearchServiceUnavailableException;
 import org.example.mappers.ProductMapper;
+import org.example.service.ConceptDictionaryService;
 import org.example.service.ProductService;
+import org.example.service.QueryEmbeddingService;
+import org.example.service.impl.SearchStageExecutor.SearchStage;
+import org.example.utils.QueryNormalizer;
+import org.example.utils.QueryPlan;
 import org.example.utils.QueryUtil;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Supplier;
 
 import static org.example.dto.ProductResponseDTO.buildEmptyProductResponseDTO;
 import static org.example.utils.QueryUtil.addBrandAggregation;
@@ -39,14 +65,44 @@ import static org.example.utils.QueryUtil.addPriceRangeAggregation;
 @Slf4j
 public class ProductServiceImpl implements ProductService {
 
+    private static final String SHARD_DOC = "_shard_doc";
+
+    private static final List<QueryType> MULTI_SEARCH_STAGES = List.of(QueryType.STRICT, QueryType.CATEGORY_ONLY_STRICT_MATCH);
+
+    private static final List<SearchMessage> MULTI_SEARCH_STAGE_MESSAGES = List.of(SearchMessage.SEARCH_SUCCESS, SearchMessage.CATEGORY_ONLY_STRICT_SUCCESS);
+
+    private static final String MULTI_SEARCH_STAGE = "strict_msearch";
+
+    private static final String AI_CANDIDATES_STAGE = "ai_candidates";
+
     private final ElasticsearchClient elasticsearchClient;
 
+    private final ElasticsearchAsyncClient elasticsearchAsyncClient;
+
     private final EsFieldsConfig esFieldsConfig;
 
     private final ProductMapper productMapper;
 
     private final OpenAIServiceImpl openAIServiceImpl;
 
+    private final QueryEmbeddingService queryEmbeddingService;
+
+    private final ConceptDictionaryService conceptDictionaryService;
+
+    private final SearchStageExecutor searchStageExecutor;
+
+    private final SearchResultCache searchResultCache;
+
+    private final SearchFacetCache searchFacetCache;
+
+    private final RerankContinuationStore rerankContinuationStore;
+
+    private final ExecutorService searchStageExecutorService;
+
+    private final SearchMetrics searchMetrics;
+
+    private final SearchRequestCoalescer searchRequestCoalescer;
+
 
     @Override
     public ProductResponseDTO getSearchProductResponse(ProductRequestDTO productRequestDTO) throws IOException {
@@ -54,108 +110,620 @@ public class ProductServiceImpl implements ProductService {
             return buildEmptyProductResponseDTO();
         }
 
-        List<String> textQueryInputTerms = List.of(productRequestDTO.queryText().toLowerCase().split(" "));
+        if (productRequestDTO.cursor() != null) {
+            return searchProductPage(productRequestDTO);
+        }
 
-        SearchResponse<ConceptDocDTO> conceptDocSearchResponse = getConceptDocSearchResponse(textQueryInputTerms);
+        SearchResultCache.Key cacheKey = searchResultCache.key(productRequestDTO);
+        if (searchResultCache.isEnabled()) {
+            Optional<ProductResponseDTO> cachedResponse = searchResultCache.get(cacheKey);
+            if (cachedResponse.isPresent()) {
+                return cachedResponse.get();
+            }
+        }
 
-        List<ConceptDocDTO> conceptDocDTOList = conceptDocSearchResponse.hits()
-                .hits()
-                .stream()
-                .map(Hit::source)
-                .filter(Objects::nonNull)
+        return searchRequestCoalescer.execute(cacheKey, () -> cached(cacheKey, searchProducts(productRequestDTO)));
+    }
+
+    @Override
+    public Optional<CompletableFuture<ProductResponseDTO>> getRerankedProductResponse(String continuationToken) {
+        return rerankContinuationStore.find(continuationToken);
+    }
+
+    @Override
+    public CompletableFuture<ProductResponseDTO> getSearchProductResponseAsync(ProductRequestDTO productRequestDTO) {
+        if (Objects.isNull(productRequestDTO.queryText())) {
+            return CompletableFuture.completedFuture(buildEmptyProductResponseDTO());
+        }
+
+        if (productRequestDTO.cursor() != null) {
+            return CompletableFuture.supplyAsync(() -> searchProductPage(productRequestDTO), searchStageExecutorService);
+        }
+
+        SearchResultCache.Key cacheKey = searchResultCache.key(productRequestDTO);
+        if (searchResultCache.isEnabled()) {
+            Optional<ProductResponseDTO> cachedResponse = searchResultCache.get(cacheKey);
+            if (cachedResponse.isPresent()) {
+                return CompletableFuture.completedFuture(cachedResponse.get());
+            }
+        }
+
+        return searchRequestCoalescer.executeAsync(cacheKey,
+                () -> searchProductsAsync(productRequestDTO).thenApply(productResponseDTO -> cached(cacheKey, productResponseDTO)));
+    }
+
+    /**
+     * Stores the response in the result cache, unless it is still waiting for a background rerank.
+     */
+    private ProductResponseDTO cached(SearchResultCache.Key cacheKey, ProductResponseDTO productResponseDTO) {
+        if (searchResultCache.isEnabled() && productResponseDTO.getContinuationToken() == null) {
+            searchResultCache.put(cacheKey, productResponseDTO);
+        }
+        return productResponseDTO;
+    }
+
+    private QueryPlan buildQueryPlan(ProductRequestDTO productRequestDTO) {
+        List<String> textQueryInputTerms = QueryNormalizer.normalize(productRequestDTO.queryText()).tokens();
+
+        ConceptMatch conceptMatch = textQueryInputTerms.isEmpty()
+                ? new ConceptMatch(List.of(), List.of())
+                : searchMetrics.timeConceptLookup(() -> conceptDictionaryService.matchConcepts(textQueryInputTerms));
+
+        String productNameFieldTokens = String.join(" ", conceptMatch.unmatchedTokens());
+
+        return QueryPlan.of(conceptMatch.concepts(), productNameFieldTokens, esFieldsConfig);
+    }
+
+    private ProductResponseDTO searchProducts(ProductRequestDTO productRequestDTO) {
+        QueryPlan queryPlan = buildQueryPlan(productRequestDTO);
+
+        List<SearchStage<?>> stages = new ArrayList<>();
+        if (esFieldsConfig.getSearch().getExecutionMode() == StageExecutionMode.MSEARCH) {
+            stages.add(SearchStage.of(MULTI_SEARCH_STAGE,
+                    () -> tryMultiSearchStages(productRequestDTO, queryPlan)));
+        } else {
+            stages.add(SearchStage.of(stageName(QueryType.STRICT),
+                    () -> trySearchStage(QueryType.STRICT, productRequestDTO, queryPlan, SearchMessage.SEARCH_SUCCESS)));
+            stages.add(SearchStage.of(stageName(QueryType.CATEGORY_ONLY_STRICT_MATCH),
+                    () -> trySearchStage(QueryType.CATEGORY_ONLY_STRICT_MATCH, productRequestDTO, queryPlan,
+                            SearchMessage.CATEGORY_ONLY_STRICT_SUCCESS)));
+        }
+        addSemanticStages(stages, productRequestDTO, queryPlan);
+        return executeStages(stages);
+    }
+
+    private void addSemanticStages(List<SearchStage<?>> stages, ProductRequestDTO productRequestDTO, QueryPlan queryPlan) {
+        Query aiCandidateQuery = queryPlan.aiCandidateQuery();
+        stages.add(SearchStage.of(stageName(QueryType.VECTOR),
+                () -> tryVectorSearch(queryPlan, productRequestDTO, SearchMessage.SEARCH_SUCCESS)));
+        stages.add(new SearchStage<>(stageName(QueryType.AI_SEARCH),
+                () -> tryAICandidateRetrieval(aiCandidateQuery),
+                aiCandidateDocs -> tryOpenAISearch(aiCandidateDocs, aiCandidateQuery, productRequestDTO,
+                        queryPlan.productNameFieldTokens(), SearchMessage.SEARCH_SUCCESS)));
+    }
+
+    private ProductResponseDTO executeStages(List<SearchStage<?>> stages) {
+        Optional<ProductResponseDTO> response = esFieldsConfig.getSearch().getExecutionMode() == StageExecutionMode.HEDGED
+                ? searchStageExecutor.executeHedged(stages, esFieldsConfig.getSearch().getHedgeDelay())
+                : searchStageExecutor.execute(stages);
+
+        return response.orElse(buildEmptyProductResponseDTO());
+    }
+
+    /**
+     * Cursor pagination over the lexical stages. The first page ({@link SearchCursor#FIRST_PAGE}) opens a point in
+     * time and runs the stages against it; later pages continue with {@code search_after} from the cursor instead of
+     * {@code from}, so deep pages cost the same as the first one. Facets are only computed on the first page.
+     * When no lexical stage matches, the semantic stages answer as usual, without a cursor.
+     */
+    private ProductResponseDTO searchProductPage(ProductRequestDTO productRequestDTO) {
+        if (!SearchCursor.FIRST_PAGE.equals(productRequestDTO.cursor())) {
+            SearchCursor cursor = SearchCursor.decode(productRequestDTO.cursor(), MULTI_SEARCH_STAGES);
+            return toCursorPage(executeCursorPageSearch(productRequestDTO, buildQueryPlan(productRequestDTO), cursor),
+                    productRequestDTO, cursor.stage(), null, false);
+        }
+
+        QueryPlan queryPlan = buildQueryPlan(productRequestDTO);
+
+        String pitId = openProductPointInTime();
+        for (QueryType queryType : MULTI_SEARCH_STAGES) {
+            Query query = queryPlan.query(queryType);
+            boolean inlineFacets = isInlineFacets(queryType, productRequestDTO, query);
+            SearchResponse<ProductDTO> page = executeProductSearch(stageName(queryType),
+                    buildCursorPageRequest(productRequestDTO, query, pitId, null, inlineFacets));
+            if (!page.hits().hits().isEmpty()) {
+                searchMetrics.recordWinner(stageName(queryType));
+                return toCursorPage(page, productRequestDTO, queryType, query, inlineFacets);
+            }
+            pitId = Objects.requireNonNullElse(page.pitId(), pitId);
+        }
+        closeProductPointInTime(pitId);
+
+        List<SearchStage<?>> stages = new ArrayList<>();
+        addSemanticStages(stages, productRequestDTO, queryPlan);
+        return executeStages(stages);
+    }
+
+    /**
+     * A point in time that expired ({@code pitKeepAlive} after the previous page) or was closed is reported
+     * by ES as a 404; a point in time id ES can not read as a 400.
+     */
+    private SearchResponse<ProductDTO> executeCursorPageSearch(ProductRequestDTO productRequestDTO, QueryPlan queryPlan,
+                                                               SearchCursor cursor) {
+        try {
+            return executeProductSearch(stageName(cursor.stage()),
+                    buildCursorPageRequest(productRequestDTO, queryPlan.query(cursor.stage()), cursor.pitId(), cursor.searchAfter(), false));
+        } catch (ElasticsearchException e) {
+            if (e.status() == HttpStatus.NOT_FOUND.value()) {
+                throw new ExpiredCursorException("Cursor expired, start again from the first page", e);
+            }
+            if (e.status() == HttpStatus.BAD_REQUEST.value()) {
+                throw new InvalidCursorException("Invalid cursor", e);
+            }
+            throw e;
+        }
+    }
+
+    private SearchRequest buildCursorPageRequest(ProductRequestDTO productRequestDTO,
+                                                 Query query,
+                                                 String pitId,
+                                                 List<FieldValue> searchAfter,
+                                                 boolean inlineFacets) {
+        List<String> projectedFields = QueryUtil.resolveProjectedFields(productRequestDTO, esFieldsConfig);
+
+        SearchRequest.Builder searchBuilder = new SearchRequest.Builder()
+                .pit(p -> p.id(pitId).keepAlive(t -> t.time(esFieldsConfig.getSearch().getPitKeepAlive())))
+                .query(query)
+                .size(productRequestDTO.getValidatedSize(esFieldsConfig.getRequest().getDefaultQuerySize()))
+                .source(QueryUtil.buildSourceConfig(projectedFields, esFieldsConfig))
+                .docvalueFields(QueryUtil.buildDocValueFields(projectedFields, esFieldsConfig))
+                .sort(so -> so.score(ss -> ss.order(SortOrder.Desc)))
+                .sort(so -> so.field(f -> f.field(SHARD_DOC).order(SortOrder.Asc)));
+        if (searchAfter != null) {
+            searchBuilder.searchAfter(searchAfter);
+        } else if (inlineFacets) {
+            searchBuilder.aggregations(QueryUtil.buildAggregations(productRequestDTO, esFieldsConfig));
+        }
+        return searchBuilder.build();
+    }
+
+    /**
+     * Maps a cursor page and attaches the cursor of the next one, or closes the point in time after the last page.
+     * Only the first page passes its query to get facets for.
+     */
+    private ProductResponseDTO toCursorPage(SearchResponse<ProductDTO> page, ProductRequestDTO productRequestDTO,
+                                            QueryType queryType, Query firstPageQuery, boolean inlineFacets) {
+        ProductResponseDTO productResponseDTO = toProductResponseDTO(page);
+        productResponseDTO.setMessage(MULTI_SEARCH_STAGE_MESSAGES.get(MULTI_SEARCH_STAGES.indexOf(queryType)).getMessage());
+        if (firstPageQuery != null) {
+            withFacets(productResponseDTO, productRequestDTO, firstPageQuery, inlineFacets);
+        }
+
+        List<Hit<ProductDTO>> hits = page.hits().hits();
+        if (hits.size() < productRequestDTO.getValidatedSize(esFieldsConfig.getRequest().getDefaultQuerySize())) {
+            closeProductPointInTime(page.pitId());
+        } else {
+            productResponseDTO.setCursor(SearchCursor.of(page.pitId(), queryType, hits.get(hits.size() - 1).sort()).encode());
+        }
+        return productResponseDTO;
+    }
+
+    private String openProductPointInTime() {
+        try {
+            return elasticsearchClient.openPointInTime(p -> p
+                    .index(esFieldsConfig.getIndex().getProductIndex())
+                    .keepAlive(t -> t.time(esFieldsConfig.getSearch().getPitKeepAlive()))).id();
+        } catch (IOException e) {
+            log.error("Point in time could not be opened", e);
+            throw new SearchServiceUnavailableException(e.getMessage());
+        }
+    }
+
+    private void closeProductPointInTime(String pitId) {
+        if (pitId == null) {
+            return;
+        }
+        try {
+            elasticsearchClient.closePointInTime(c -> c.id(pitId));
+        } catch (IOException | RuntimeException e) {
+            log.warn("Point in time on {} could not be closed", esFieldsConfig.getIndex().getProductIndex(), e);
+        }
+    }
+
+    /**
+     * Non-blocking variant of {@link #searchProducts}: the ES stages run on the async client and are chained
+     * with the same fallback order, only the OpenAI calls (query embedding, rerank) and the facet lookup of the
+     * winning stage run on the virtual-thread stage executor. Hedged mode is not applied here, the stages always
+     * run one after the other.
+     */
+    private CompletableFuture<ProductResponseDTO> searchProductsAsync(ProductRequestDTO productRequestDTO) {
+        QueryPlan queryPlan = buildQueryPlan(productRequestDTO);
+
+        CompletableFuture<Optional<ProductResponseDTO>> strictStages;
+        if (esFieldsConfig.getSearch().getExecutionMode() == StageExecutionMode.MSEARCH) {
+            List<Query> multiSearchQueries = buildMultiSearchQueries(queryPlan);
+            List<Boolean> inlineFacets = isInlineFacets(productRequestDTO, multiSearchQueries);
+            long startNanos = System.nanoTime();
+            strictStages = countingWinner(MULTI_SEARCH_STAGE, elasticsearchAsyncClient
+                    .msearch(buildStrictMultiSearchRequest(productRequestDTO, multiSearchQueries, inlineFacets), ProductDTO.class)
+                    .whenComplete((msearchResponse, e) -> searchMetrics.recordLatency(MULTI_SEARCH_STAGE, startNanos))
+                    .thenApplyAsync(msearchResponse -> firstNonEmptyStage(msearchResponse, productRequestDTO, multiSearchQueries, inlineFacets),
+                            searchStageExecutorService));
+        } else {
+            strictStages = orAsync(
+                    countingWinner(stageName(QueryType.STRICT),
+                            searchStageAsync(QueryType.STRICT, productRequestDTO, queryPlan, SearchMessage.SEARCH_SUCCESS)),
+                    () -> countingWinner(stageName(QueryType.CATEGORY_ONLY_STRICT_MATCH),
+                            searchStageAsync(QueryType.CATEGORY_ONLY_STRICT_MATCH, productRequestDTO, queryPlan,
+                                    SearchMessage.CATEGORY_ONLY_STRICT_SUCCESS)));
+        }
+
+        CompletableFuture<Optional<ProductResponseDTO>> response = orAsync(
+                orAsync(strictStages,
+                        () -> countingWinner(stageName(QueryType.VECTOR),
+                                vectorSearchAsync(queryPlan, productRequestDTO, SearchMessage.SEARCH_SUCCESS))),
+                () -> countingWinner(stageName(QueryType.AI_SEARCH),
+                        openAISearchAsync(queryPlan, productRequestDTO, SearchMessage.SEARCH_SUCCESS)));
+
+        return response.thenApply(stageResponse -> stageResponse.orElseGet(() -> {
+            searchMetrics.recordWinner(SearchMetrics.NO_WINNER);
+            return buildEmptyProductResponseDTO();
+        }));
+    }
+
+    /**
+     * Counts the stage as the winner when it found products; in the async chain no later stage runs then.
+     */
+    private CompletableFuture<Optional<ProductResponseDTO>> countingWinner(String stage,
+                                                                           CompletableFuture<Optional<ProductResponseDTO>> stageResponse) {
+        return stageResponse.thenApply(response -> {
+            response.ifPresent(ignored -> searchMetrics.recordWinner(stage));
+            return response;
+        });
+    }
+
+    /**
+     * Asynchronous {@link Optional#or}: the next stage is only started when the previous one completed empty.
+     */
+    private static <T> CompletableFuture<Optional<T>> orAsync(CompletableFuture<Optional<T>> stage,
+                                                              Supplier<CompletableFuture<Optional<T>>> nextStage) {
+        return stage.thenCompose(result -> result.isPresent() ? CompletableFuture.completedFuture(result) : nextStage.get());
+    }
+
+    private CompletableFuture<Optional<ProductResponseDTO>> searchStageAsync(QueryType queryType,
+                                                                             ProductRequestDTO productRequestDTO,
+                                                                             QueryPlan queryPlan,
+                                                                             SearchMessage searchMessage) {
+        Query queryByStrategy = queryPlan.query(queryType);
+        boolean inlineFacets = isInlineFacets(queryType, productRequestDTO, queryByStrategy);
+        return searchAsyncRecorded(stageName(queryType), buildProductSearchRequest(productRequestDTO, queryByStrategy, inlineFacets))
+                .thenApplyAsync(searchResponse -> toStageResponse(searchResponse, searchMessage)
+                        .map(response -> withFacets(response, productRequestDTO, queryByStrategy, inlineFacets)), searchStageExecutorService);
+    }
+
+    private CompletableFuture<Optional<ProductResponseDTO>> vectorSearchAsync(QueryPlan queryPlan,
+                                                                              ProductRequestDTO productRequestDTO,
+                                                                              SearchMessage searchMessage) {
+        if (!Boolean.TRUE.equals(esFieldsConfig.getVector().getEnabled())) {
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+
+        return CompletableFuture.supplyAsync(() -> tryEmbedQuery(productRequestDTO.queryText()), searchStageExecutorService)
+                .thenCompose(queryVector -> queryVector
+                        .map(vector -> searchAsyncRecorded(stageName(QueryType.VECTOR),
+                                        buildVectorSearchRequest(queryPlan.query(QueryType.VECTOR), productRequestDTO, vector))
+                                .thenApplyAsync(searchResponse -> toStageResponse(searchResponse, searchMessage)
+                                        .map(response -> withFacets(response, productRequestDTO, queryPlan.query(QueryType.VECTOR))),
+                                        searchStageExecutorService))
+                        .orElseGet(() -> CompletableFuture.completedFuture(Optional.empty())));
+    }
+
+    private CompletableFuture<Optional<ProductResponseDTO>> openAISearchAsync(QueryPlan queryPlan,
+                                                                              ProductRequestDTO productRequestDTO,
+                                                                              SearchMessage searchMessage) {
+        return searchAsyncRecorded(AI_CANDIDATES_STAGE, buildAICandidateSearchRequest(queryPlan.aiCandidateQuery()))
+                .thenApply(this::toAICandidateDocs)
+                .thenCompose(aiCandidateDocs -> aiCandidateDocs.isEmpty()
+                        ? CompletableFuture.completedFuture(Optional.empty())
+                        : CompletableFuture.supplyAsync(() -> tryOpenAISearch(aiCandidateDocs, queryPlan.aiCandidateQuery(),
+                                productRequestDTO, queryPlan.productNameFieldTokens(), searchMessage), searchStageExecutorService));
+    }
+
+    /**
+     * Sends the STRICT and CATEGORY_ONLY_STRICT_MATCH stage queries in one _msearch round trip
+     * and returns the first non-empty response in stage order.
+     */
+    private Optional<ProductResponseDTO> tryMultiSearchStages(ProductRequestDTO productRequestDTO,
+                                                              QueryPlan queryPlan) {
+        List<Query> multiSearchQueries = buildMultiSearchQueries(queryPlan);
+        List<Boolean> inlineFacets = isInlineFacets(productRequestDTO, multiSearchQueries);
+        MsearchResponse<ProductDTO> msearchResponse;
+        long startNanos = System.nanoTime();
+        try {
+            msearchResponse = elasticsearchClient.msearch(buildStrictMultiSearchRequest(productRequestDTO, multiSearchQueries, inlineFacets), ProductDTO.class);
+            searchMetrics.recordLatency(MULTI_SEARCH_STAGE, startNanos);
+        } catch (IOException e) {
+            log.error("Multi search stage failed", e);
+            throw new SearchServiceUnavailableException(e.getMessage());
+        }
+        return firstNonEmptyStage(msearchResponse, productRequestDTO, multiSearchQueries, inlineFacets);
+    }
+
+    private List<Query> buildMultiSearchQueries(QueryPlan queryPlan) {
+        return MULTI_SEARCH_STAGES.stream()
+                .map(queryPlan::query)
                 .toList();
+    }
+
+    /**
+     * Whether each of the multi search stages aggregates the facets of its own query.
+     */
+    private List<Boolean> isInlineFacets(ProductRequestDTO productRequestDTO, List<Query> multiSearchQueries) {
+        List<Boolean> inlineFacets = new ArrayList<>();
+        for (int i = 0; i < multiSearchQueries.size(); i++) {
+            inlineFacets.add(isInlineFacets(MULTI_SEARCH_STAGES.get(i), productRequestDTO, multiSearchQueries.get(i)));
+        }
+        return inlineFacets;
+    }
+
+    private MsearchRequest buildStrictMultiSearchRequest(ProductRequestDTO productRequestDTO, List<Query> multiSearchQueries,
+                                                         List<Boolean> inlineFacets) {
+        Map<String, Aggregation> aggregations = QueryUtil.buildAggregations(productRequestDTO, esFieldsConfig);
+        List<String> projectedFields = QueryUtil.resolveProjectedFields(productRequestDTO, esFieldsConfig);
+        SourceConfig sourceConfig = QueryUtil.buildSourceConfig(projectedFields, esFieldsConfig);
+        List<FieldAndFormat> docValueFields = QueryUtil.buildDocValueFields(projectedFields, esFieldsConfig);
+        List<RequestItem> searches = new ArrayList<>();
+        for (int i = 0; i < multiSearchQueries.size(); i++) {
+            Query query = multiSearchQueries.get(i);
+            Map<String, Aggregation> stageAggregations = inlineFacets.get(i) ? aggregations : Map.of();
+            searches.add(RequestItem.of(item -> item
+                    .header(h -> h.index(esFieldsConfig.getIndex().getProductIndex()))
+                    .body(b -> b
+                            .query(query)
+                            .from(productRequestDTO.from(esFieldsConfig.getRequest().getDefaultQuerySize(), esFieldsConfig.getRequest().getDefaultQueryPage()))
+                            .size(productRequestDTO.getValidatedSize(esFieldsConfig.getRequest().getDefaultQuerySize()))
+                            .sort(so -> so.score(ss -> ss.order(SortOrder.Desc)))
+                            .source(sourceConfig)
+                            .docvalueFields(docValueFields)
+                            .aggregations(stageAggregations))));
+        }
+        return MsearchRequest.of(m -> m.searches(searches));
+    }
+
+    private Optional<ProductResponseDTO> firstNonEmptyStage(MsearchResponse<ProductDTO> msearchResponse,
+                                                            ProductRequestDTO productRequestDTO,
+                                                            List<Query> multiSearchQueries,
+                                                            List<Boolean> inlineFacets) {
+        List<MultiSearchResponseItem<ProductDTO>> responses = msearchResponse.responses();
+        for (int i = 0; i < responses.size(); i++) {
+            MultiSearchResponseItem<ProductDTO> item = responses.get(i);
+            if (item.isFailure()) {
+                log.error("Search stage {} failed: {}", MULTI_SEARCH_STAGES.get(i), item.failure().error().reason());
+                throw new SearchServiceUnavailableException(item.failure().error().reason());
+            }
+
+            searchMetrics.recordSearchResult(stageName(MULTI_SEARCH_STAGES.get(i)), item.result());
+            Optional<ProductResponseDTO> response = toStageResponse(item.result(), MULTI_SEARCH_STAGE_MESSAGES.get(i));
+            if (response.isPresent()) {
+                return Optional.of(withFacets(response.get(), productRequestDTO, multiSearchQueries.get(i), inlineFacets.get(i)));
+            }
+        }
+        return Optional.empty();
+    }
+
+    private Optional<ProductResponseDTO> toStageResponse(ResponseBody<ProductDTO> searchResponse, SearchMessage searchMessage) {
+        ProductResponseDTO productResponseDTO = toProductResponseDTO(searchResponse);
+        if (productResponseDTO.getProductDTOList().isEmpty()) {
+            return Optional.empty();
+        }
 
-        String productNameFieldTokens = extractProductNameFieldTokens(textQueryInputTerms, conceptDocDTOList);
-
-        List<Query> filterQueries = QueryUtil.createFilterQuery(conceptDocDTOList, esFieldsConfig);
-        List<Query> mustQueries = QueryUtil.createMustQuery(productNameFieldTokens, esFieldsConfig.getFields().getName());
-        List<Query> shouldQueries = QueryUtil.createShouldQuery(productNameFieldTokens, esFieldsConfig.getFields().getNameShingles());
-
-        return trySearchStage(
-                QueryType.STRICT,
-                productRequestDTO,
-                filterQueries,
-                mustQueries,
-                shouldQueries,
-                SearchMessage.SEARCH_SUCCESS)
-                .or(() -> trySearchStage(
-                        QueryType.CATEGORY_ONLY_STRICT_MATCH,
-                        productRequestDTO,
-                        filterQueries,
-                        mustQueries,
-                        shouldQueries,
-                        SearchMessage.CATEGORY_ONLY_STRICT_SUCCESS))
-                .or(() -> tryOpenAISearch(
-                        filterQueries,
-                        productRequestDTO,
-                        productNameFieldTokens,
-                        SearchMessage.SEARCH_SUCCESS))
-                .orElse(buildEmptyProductResponseDTO());
+        productResponseDTO.setMessage(searchMessage.getMessage());
+        return Optional.of(productResponseDTO);
+    }
+
+    private boolean isInlineFacets() {
+        return esFieldsConfig.getSearch().getFacetMode() == FacetMode.EVERY_STAGE;
     }
 
+    /**
+     * In {@link FacetMode#WINNING_STAGE} mode the STRICT stage, which wins most searches, still aggregates the facets
+     * of its query as long as they aren't cached, so that its hits don't need a second aggregation search.
+     */
+    private boolean isInlineFacets(QueryType queryType, ProductRequestDTO productRequestDTO, Query query) {
+        return isInlineFacets()
+                || queryType == QueryType.STRICT && !searchFacetCache.contains(productRequestDTO, query);
+    }
+
+    private ProductResponseDTO withFacets(ProductResponseDTO productResponseDTO, ProductRequestDTO productRequestDTO, Query facetQuery) {
+        return withFacets(productResponseDTO, productRequestDTO, facetQuery, isInlineFacets());
+    }
+
+    /**
+     * Sets the facets of the winning stage's query on its response, unless the stage search already aggregated them
+     * itself; in {@link FacetMode#WINNING_STAGE} mode those are cached for the next searches of the query.
+     */
+    private ProductResponseDTO withFacets(ProductResponseDTO productResponseDTO, ProductRequestDTO productRequestDTO,
+                                          Query facetQuery, boolean inlineFacets) {
+        if (!inlineFacets) {
+            productResponseDTO.setFacetDTO(searchFacetCache.getFacets(productRequestDTO, facetQuery));
+        } else if (!isInlineFacets()) {
+            searchFacetCache.put(productRequestDTO, facetQuery, productResponseDTO.getFacetDTO());
+        }
+        return productResponseDTO;
+    }
 
     private Optional<ProductResponseDTO> trySearchStage(
             QueryType queryType,
             ProductRequestDTO productRequestDTO,
-            List<Query> filterQueries,
-            List<Query> mustQueries,
-            List<Query> shouldQueries,
+            QueryPlan queryPlan,
             SearchMessage searchMessage
     ) {
 
-        ProductResponseDTO response = searchProductByStages(
-                queryType,
-                productRequestDTO,
-                filterQueries,
-                mustQueries,
-                shouldQueries
-        );
+        Query queryByStrategy = queryPlan.query(queryType);
+        searchMetrics.debugSampled("queryByStrategy", queryByStrategy);
+
+        boolean inlineFacets = isInlineFacets(queryType, productRequestDTO, queryByStrategy);
+        ProductResponseDTO response = toProductResponseDTO(executeProductSearch(stageName(queryType),
+                buildProductSearchRequest(productRequestDTO, queryByStrategy, inlineFacets)));
 
         if (response.getProductDTOList().isEmpty()) {
             return Optional.empty();
         }
 
         response.setMessage(searchMessage.getMessage());
-        return Optional.of(response);
+        return Optional.of(withFacets(response, productRequestDTO, queryByStrategy, inlineFacets));
     }
 
-    private Optional<ProductResponseDTO> tryOpenAISearch(List<Query> filterQueries, ProductRequestDTO productRequestDTO,
+    private Optional<List<AICandidateDoc>> tryAICandidateRetrieval(Query aiCandidateQuery) {
+        List<AICandidateDoc> aiCandidateDocs = getAICandidateDocs(aiCandidateQuery);
+        return aiCandidateDocs.isEmpty() ? Optional.empty() : Optional.of(aiCandidateDocs);
+    }
+
+    /**
+     * Reranks the candidates with the LLM. When OpenAI is unavailable (circuit open, bulkhead full, timeout),
+     * the candidate query itself is served instead, i.e. the category products ranked by BM25 on the residual tokens.
+     * <p>
+     * With async rerank enabled the BM25 ranked candidates are returned right away with a continuation token,
+     * and the reranked response can be fetched with that token once the background rerank finished.
+     */
+    private Optional<ProductResponseDTO> tryOpenAISearch(List<AICandidateDoc> aiCandidateDocs, Query aiCandidateQuery,
+                                                         ProductRequestDTO productRequestDTO,
                                                          String userQuery,
                                                          SearchMessage searchMessage) {
-        List<AICandidateDoc> aiCandidateDocs = getAICandidateDocs(filterQueries, QueryType.AI_SEARCH);
+        if (Boolean.TRUE.equals(esFieldsConfig.getAiAsync().getEnabled())) {
+            return tryAsyncOpenAISearch(aiCandidateDocs, aiCandidateQuery, productRequestDTO, userQuery, searchMessage);
+        }
 
-        if (aiCandidateDocs.isEmpty()) {
+        try {
+            return rerankAICandidates(aiCandidateDocs, productRequestDTO, userQuery, searchMessage);
+        } catch (AIServiceUnavailableException e) {
+            log.warn("AI rerank skipped, serving the BM25 ranked candidates: {}", e.getMessage());
+            return searchAICandidateProducts(aiCandidateQuery, productRequestDTO);
+        }
+    }
+
+    private Optional<ProductResponseDTO> tryAsyncOpenAISearch(List<AICandidateDoc> aiCandidateDocs, Query aiCandidateQuery,
+                                                              ProductRequestDTO productRequestDTO,
+                                                              String userQuery,
+                                                              SearchMessage searchMessage) {
+        Optional<ProductResponseDTO> candidateResponse = searchAICandidateProducts(aiCandidateQuery, productRequestDTO);
+        if (candidateResponse.isEmpty()) {
             return Optional.empty();
         }
 
+        ProductResponseDTO candidateResponseDTO = candidateResponse.get();
+        ProductResponseDTO fallbackResponseDTO = ProductResponseDTO.builder()
+                .totalHits(candidateResponseDTO.getTotalHits())
+                .message(candidateResponseDTO.getMessage())
+                .productDTOList(candidateResponseDTO.getProductDTOList())
+                .facetDTO(candidateResponseDTO.getFacetDTO())
+                .build();
+
+        CompletableFuture<ProductResponseDTO> rerank = CompletableFuture.supplyAsync(() -> {
+            try {
+                return rerankAICandidates(aiCandidateDocs, productRequestDTO, userQuery, searchMessage).orElse(fallbackResponseDTO);
+            } catch (RuntimeException e) {
+                log.warn("Background AI rerank failed, keeping the BM25 ranked candidates: {}", e.getMessage());
+                return fallbackResponseDTO;
+            }
+        }, searchStageExecutorService);
+
+        candidateResponseDTO.setContinuationToken(rerankContinuationStore.register(rerank));
+        return Optional.of(candidateResponseDTO);
+    }
+
+    private Optional<ProductResponseDTO> rerankAICandidates(List<AICandidateDoc> aiCandidateDocs,
+                                                            ProductRequestDTO productRequestDTO,
+                                                            String userQuery,
+                                                            SearchMessage searchMessage) {
         List<String> docIdsFromOpenAI = openAIServiceImpl.getDocIdsIOpenAI(userQuery, aiCandidateDocs);
-        ProductResponseDTO productResponseDTO = productMapper.toProductResponseDTO(searchDocsByIds(docIdsFromOpenAI, productRequestDTO));
+        Query queryByIds = Query.of(q -> q.ids(ids -> ids.values(docIdsFromOpenAI)));
+        ProductResponseDTO productResponseDTO = toProductResponseDTO(searchProductsWithAggregation(stageName(QueryType.AI_SEARCH), productRequestDTO, queryByIds));
 
         if (productResponseDTO.getProductDTOList().isEmpty()) {
             return Optional.empty();
         }
 
         productResponseDTO.setMessage(searchMessage.getMessage());
-        return Optional.of(productResponseDTO);
+        return Optional.of(withFacets(productResponseDTO, productRequestDTO, queryByIds));
     }
 
-    private SearchResponse<ProductDTO> searchDocsByIds(List<String> docIds, ProductRequestDTO productRequestDTO) {
-        Query queryByIds = Query.of(q -> q.ids(ids -> ids.values(docIds)));
-        return searchProductsWithAggregation(productRequestDTO, queryByIds);
+    private Optional<ProductResponseDTO> searchAICandidateProducts(Query aiCandidateQuery, ProductRequestDTO productRequestDTO) {
+        ProductResponseDTO productResponseDTO = toProductResponseDTO(searchProductsWithAggregation(stageName(QueryType.AI_SEARCH), productRequestDTO, aiCandidateQuery));
+        if (productResponseDTO.getProductDTOList().isEmpty()) {
+            return Optional.empty();
+        }
+
+        productResponseDTO.setMessage(SearchMessage.CATEGORY_ONLY_STRICT_SUCCESS.getMessage());
+        return Optional.of(withFacets(productResponseDTO, productRequestDTO, aiCandidateQuery));
     }
 
-    private List<AICandidateDoc> getAICandidateDocs(
-            List<Query> filterQueries, QueryType queryType) {
+    /**
+     * Semantic fallback: kNN on the name embeddings, restricted to the detected categories
+     * and optionally fused with a BM25 match on the name by reciprocal rank fusion.
+     */
+    private Optional<ProductResponseDTO> tryVectorSearch(QueryPlan queryPlan,
+                                                         ProductRequestDTO productRequestDTO,
+                                                         SearchMessage searchMessage) {
+        if (!Boolean.TRUE.equals(esFieldsConfig.getVector().getEnabled())) {
+            return Optional.empty();
+        }
 
-        Query queryFiltersForCandidates = QueryUtil.buildQueryByStrategy(
-                queryType,
-                filterQueries,
-                List.of(),
-                List.of(),
-                esFieldsConfig
-        );
+        return tryEmbedQuery(productRequestDTO.queryText())
+                .flatMap(queryVector -> toStageResponse(
+                        executeProductSearch(stageName(QueryType.VECTOR), buildVectorSearchRequest(queryPlan.query(QueryType.VECTOR), productRequestDTO, queryVector)),
+                        searchMessage))
+                .map(response -> withFacets(response, productRequestDTO, queryPlan.query(QueryType.VECTOR)));
+    }
 
-        return searchAICandidates(queryFiltersForCandidates)
+    private Optional<List<Float>> tryEmbedQuery(String queryText) {
+        try {
+            return Optional.of(queryEmbeddingService.embedQuery(queryText));
+        } catch (RuntimeException e) {
+            log.warn("Query embedding failed, skipping vector search stage", e);
+            return Optional.empty();
+        }
+    }
+
+    private SearchRequest buildVectorSearchRequest(Query categoryFilterQuery, ProductRequestDTO productRequestDTO, List<Float> queryVector) {
+        EsFieldsConfig.Vector vector = esFieldsConfig.getVector();
+        int size = productRequestDTO.getValidatedSize(esFieldsConfig.getRequest().getDefaultQuerySize());
+        int k = Math.max(vector.getK(), productRequestDTO.from(esFieldsConfig.getRequest().getDefaultQuerySize(), esFieldsConfig.getRequest().getDefaultQueryPage()) + size);
+        int numCandidates = Math.max(vector.getNumCandidates(), k);
+
+        SearchRequest.Builder searchBuilder = createProductSearchBuilder(productRequestDTO, isInlineFacets());
+        if (Boolean.TRUE.equals(vector.getHybridEnabled())) {
+            Query textQuery = QueryUtil.buildHybridTextQuery(categoryFilterQuery, productRequestDTO.queryText(), esFieldsConfig.getFields().getName());
+            searchBuilder.retriever(r -> r.rrf(rrf -> rrf
+                    .retrievers(
+                            Retriever.of(tr -> tr.standard(st -> st.query(textQuery))),
+                            Retriever.of(kr -> kr.knn(knn -> knn
+                                    .field(vector.getField())
+                                    .queryVector(queryVector)
+                                    .k(k)
+                                    .numCandidates(numCandidates)
+                                    .similarity(vector.getSimilarity())
+                                    .filter(categoryFilterQuery))))
+                    .rankWindowSize(Math.max(vector.getRankWindowSize(), k))
+                    .rankConstant(vector.getRankConstant())));
+        } else {
+            searchBuilder.knn(knn -> knn
+                    .field(vector.getField())
+                    .queryVector(queryVector)
+                    .k(k)
+                    .numCandidates(numCandidates)
+                    .similarity(vector.getSimilarity())
+                    .filter(categoryFilterQuery));
+        }
+        return searchBuilder.build();
+    }
+
+    private List<AICandidateDoc> getAICandidateDocs(Query candidateQuery) {
+        return toAICandidateDocs(executeProductSearch(AI_CANDIDATES_STAGE, buildAICandidateSearchRequest(candidateQuery)));
+    }
+
+    private List<AICandidateDoc> toAICandidateDocs(SearchResponse<ProductDTO> candidateSearchResponse) {
+        return candidateSearchResponse
                 .hits()
                 .hits()
                 .stream()
@@ -167,82 +735,73 @@ public class ProductServiceImpl implements ProductService {
     }
 
 
-    private SearchResponse<ProductDTO> searchProductsWithAggregation(ProductRequestDTO productRequestDTO, Query mainQuery) {
+    private SearchResponse<ProductDTO> searchProductsWithAggregation(String stage, ProductRequestDTO productRequestDTO, Query mainQuery) {
+        return executeProductSearch(stage, buildProductSearchRequest(productRequestDTO, mainQuery, isInlineFacets()));
+    }
+
+    private SearchRequest buildProductSearchRequest(ProductRequestDTO productRequestDTO, Query mainQuery, boolean inlineFacets) {
+        return createProductSearchBuilder(productRequestDTO, inlineFacets)
+                .query(mainQuery)
+                .sort(so -> so.score(ss -> ss.order(SortOrder.Desc)))
+                .build();
+    }
+
+    private SearchRequest.Builder createProductSearchBuilder(ProductRequestDTO productRequestDTO, boolean inlineFacets) {
+        List<String> projectedFields = QueryUtil.resolveProjectedFields(productRequestDTO, esFieldsConfig);
         SearchRequest.Builder searchBuilder = new SearchRequest.Builder()
                 .index(esFieldsConfig.getIndex().getProductIndex())
                 .from(productRequestDTO.from(esFieldsConfig.getRequest().getDefaultQuerySize(), esFieldsConfig.getRequest().getDefaultQueryPage()))
                 .size(productRequestDTO.getValidatedSize(esFieldsConfig.getRequest().getDefaultQuerySize()))
-                .query(mainQuery)
-                .sort(so -> so.score(ss -> ss.order(SortOrder.Desc)));
-
-        addBrandAggregation(searchBuilder, productRequestDTO, esFieldsConfig);
-        addPriceRangeAggregation(searchBuilder, esFieldsConfig);
+                .source(QueryUtil.buildSourceConfig(projectedFields, esFieldsConfig))
+                .docvalueFields(QueryUtil.buildDocValueFields(projectedFields, esFieldsConfig));
 
-        try {
-            return elasticsearchClient.search(searchBuilder.build(), ProductDTO.class);
-        } catch (IOException e) {
-            log.error("Search stage failed", e);
-            throw new SearchServiceUnavailableException(e.getMessage());
+        if (inlineFacets) {
+            addBrandAggregation(searchBuilder, productRequestDTO, esFieldsConfig);
+            addPriceRangeAggregation(searchBuilder, esFieldsConfig);
         }
+        return searchBuilder;
     }
 
-    private SearchResponse<ProductDTO> searchAICandidates(Query query) {
-        SearchRequest.Builder searchBuilder = new SearchRequest.Builder()
-                .index(esFieldsConfig.getIndex().getProductIndex())
-                .query(query)
-                .sort(so -> so.score(ss -> ss.order(SortOrder.Desc)));
-
+    private SearchResponse<ProductDTO> executeProductSearch(String stage, SearchRequest searchRequest) {
+        long startNanos = System.nanoTime();
         try {
-            return elasticsearchClient.search(searchBuilder.build(), ProductDTO.class);
+            return recorded(stage, startNanos, elasticsearchClient.search(searchRequest, ProductDTO.class));
         } catch (IOException e) {
             log.error("Search stage failed", e);
             throw new SearchServiceUnavailableException(e.getMessage());
         }
     }
 
-    private ProductResponseDTO searchProductByStages(QueryType queryType,
-                                                     ProductRequestDTO productRequestDTO,
-                                                     List<Query> filterQueries,
-                                                     List<Query> mustQueries,
-                                                     List<Query> shouldQueries) {
-
-        Query queryByStrategy = QueryUtil.buildQueryByStrategy(queryType, filterQueries, mustQueries, shouldQueries, esFieldsConfig);
-        log.info("queryByStrategy: {}", queryByStrategy);
-
-        SearchResponse<ProductDTO> productDTOSearchFirstStage = searchProductsWithAggregation(productRequestDTO, queryByStrategy);
-        return productMapper.toProductResponseDTO(productDTOSearchFirstStage);
+    private CompletableFuture<SearchResponse<ProductDTO>> searchAsyncRecorded(String stage, SearchRequest searchRequest) {
+        long startNanos = System.nanoTime();
+        return elasticsearchAsyncClient.search(searchRequest, ProductDTO.class)
+                .thenApply(searchResponse -> recorded(stage, startNanos, searchResponse));
     }
 
-    private SearchResponse<ConceptDocDTO> getConceptDocSearchResponse(List<String> textQueryInputTerms) throws IOException {
-        Query conceptTermsQuery = Query.of(q -> q
-                .terms(t -> t
-                        .field(esFieldsConfig.getIndex().getSearchTerms())
-                        .terms(TermsQueryField.of(f -> f
-                                .value(textQueryInputTerms.stream().map(FieldValue::of).toList())
-                        ))
-                )
-        );
-
-        log.info("conceptTermsQuery: {}", conceptTermsQuery);
+    private SearchResponse<ProductDTO> recorded(String stage, long startNanos, SearchResponse<ProductDTO> searchResponse) {
+        searchMetrics.recordSearch(stage, startNanos, searchResponse);
+        return searchResponse;
+    }
 
-        SearchResponse<ConceptDocDTO> conceptSearchResponse = elasticsearchClient.search(
-                s -> s
-                        .index(esFieldsConfig.getIndex().getConceptIndex())
-                        .query(conceptTermsQuery),
-                ConceptDocDTO.class
-        );
+    private ProductResponseDTO toProductResponseDTO(ResponseBody<ProductDTO> searchResponse) {
+        return searchMetrics.timeMapping(() -> productMapper.toProductResponseDTO(searchResponse));
+    }
 
-        log.info("conceptSearchResponse: {}", conceptSearchResponse);
-        return conceptSearchResponse;
+    /**
+     * Name of the stage in the meters and the stage executor, e.g. {@code category_only_strict_match}.
+     */
+    private static String stageName(QueryType queryType) {
+        return queryType.name().toLowerCase(Locale.ROOT);
     }
 
-    private String extractProductNameFieldTokens(List<String> textQueryInputTerms, List<ConceptDocDTO> conceptDocDTOList) {
-        return textQueryInputTerms.stream()
-                .filter(textInputToken ->
-                        conceptDocDTOList.stream()
-                                .filter(Objects::nonNull)
-                                .noneMatch(conceptDocDTO ->
-                                        conceptDocDTO.searchTerms().contains(textInputToken)))
-                .collect(Collectors.joining(" "));
+    private SearchRequest buildAICandidateSearchRequest(Query query) {
+        return new SearchRequest.Builder()
+                .index(esFieldsConfig.getIndex().getProductIndex())
+                .query(query)
+                .size(esFieldsConfig.getOpenAI().getMaxCandidates())
+                .source(src -> src.filter(f -> f.includes(esFieldsConfig.getFields().getName())))
+                .trackTotalHits(t -> t.enabled(false))
+                .sort(so -> so.score(ss -> ss.order(SortOrder.Desc)))
+                .build();
     }
-}
\ No newline at end of file
+}
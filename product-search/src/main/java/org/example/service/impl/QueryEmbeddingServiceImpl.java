@@ -0,0 +1,80 @@
+package org.example.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.openai.client.OpenAIClient;
+import com.openai.models.embeddings.CreateEmbeddingResponse;
+import com.openai.models.embeddings.EmbeddingCreateParams;
+import org.example.config.EsFieldsConfig;
+import org.example.exception.NoContentAISearchException;
+import org.example.service.QueryEmbeddingService;
+import org.example.utils.QueryNormalizer;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+@Service
+public class QueryEmbeddingServiceImpl implements QueryEmbeddingService {
+
+    private static final String EMBEDDING_OPERATION = "embedding";
+
+    private final OpenAIClient openAIClient;
+
+    private final EsFieldsConfig esFieldsConfig;
+
+    private final SearchMetrics searchMetrics;
+
+    private final OpenAICallExecutor openAICallExecutor;
+
+    private final Cache<String, List<Float>> queryEmbeddingCache;
+
+    public QueryEmbeddingServiceImpl(OpenAIClient openAIClient, EsFieldsConfig esFieldsConfig, SearchMetrics searchMetrics,
+                                     OpenAICallExecutor openAICallExecutor) {
+        this.openAIClient = openAIClient;
+        this.esFieldsConfig = esFieldsConfig;
+        this.searchMetrics = searchMetrics;
+        this.openAICallExecutor = openAICallExecutor;
+        this.queryEmbeddingCache = Caffeine.newBuilder()
+                .maximumSize(esFieldsConfig.getVector().getQueryCacheSize())
+                .expireAfterWrite(esFieldsConfig.getVector().getQueryCacheTtl())
+                .build();
+    }
+
+    /**
+     * The embedding call is made outside the cache: a loading {@code get} would run it while holding the map
+     * bin lock and pin the carrier of a virtual thread. Concurrent misses of the same query may each embed it.
+     */
+    @Override
+    public List<Float> embedQuery(String queryText) {
+        String normalizedQuery = QueryNormalizer.normalize(queryText).text();
+        List<Float> embedding = queryEmbeddingCache.getIfPresent(normalizedQuery);
+        if (embedding == null) {
+            embedding = createEmbedding(normalizedQuery);
+            queryEmbeddingCache.put(normalizedQuery, embedding);
+        }
+        return embedding;
+    }
+
+    private List<Float> createEmbedding(String normalizedQuery) {
+        EmbeddingCreateParams params = EmbeddingCreateParams.builder()
+                .model(esFieldsConfig.getOpenAI().getEmbeddingModel())
+                .input(normalizedQuery)
+                .build();
+
+        CreateEmbeddingResponse response;
+        long startNanos = System.nanoTime();
+        String outcome = "error";
+        try {
+            response = openAICallExecutor.call(() -> openAIClient.embeddings().create(params));
+            outcome = "success";
+        } finally {
+            searchMetrics.recordOpenAICall(EMBEDDING_OPERATION, startNanos, outcome);
+        }
+        searchMetrics.recordOpenAITokens(EMBEDDING_OPERATION, "prompt", response.usage().promptTokens());
+
+        if (response.data().isEmpty()) {
+            throw new NoContentAISearchException("No embedding returned for query: " + normalizedQuery);
+        }
+        return response.data().get(0).embedding();
+    }
+}
@@ -0,0 +1,38 @@
+package org.example.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.example.config.EsFieldsConfig;
+import org.example.dto.ProductResponseDTO;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Short-lived store of background LLM reranks, looked up by the continuation token handed out
+ * with the immediate BM25 ordered response.
+ */
+@Component
+public class RerankContinuationStore {
+
+    private final Cache<String, CompletableFuture<ProductResponseDTO>> reranks;
+
+    public RerankContinuationStore(EsFieldsConfig esFieldsConfig) {
+        this.reranks = Caffeine.newBuilder()
+                .maximumSize(esFieldsConfig.getAiAsync().getMaximumPending())
+                .expireAfterWrite(esFieldsConfig.getAiAsync().getResultTtl())
+                .build();
+    }
+
+    public String register(CompletableFuture<ProductResponseDTO> rerank) {
+        String continuationToken = UUID.randomUUID().toString();
+        reranks.put(continuationToken, rerank);
+        return continuationToken;
+    }
+
+    public Optional<CompletableFuture<ProductResponseDTO>> find(String continuationToken) {
+        return Optional.ofNullable(reranks.getIfPresent(continuationToken));
+    }
+}
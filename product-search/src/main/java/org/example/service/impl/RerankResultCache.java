@@ -0,0 +1,253 @@
+package org.example.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.config.EsFieldsConfig;
+import org.example.dto.AICandidateDoc;
+import org.example.utils.QueryNormalizer;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache of OpenAI rerank results keyed by the model, the normalized user query and the hash of the candidate ids.
+ * <p>
+ * When a persistence file is configured, new entries are queued and appended to it as JSON lines by a single writer
+ * thread, once per {@code flushInterval}. On startup the live entries are loaded back with their original age and the
+ * file is rewritten without the expired ones. The writer rewrites it the same way as soon as it holds more stale
+ * lines (evicted, expired or replaced entries) than live entries, so the file stays bounded during long uptimes.
+ */
+@Component
+@Slf4j
+public class RerankResultCache {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final EsFieldsConfig esFieldsConfig;
+
+    private final Cache<String, RerankResult> cache;
+
+    private final Path persistenceFile;
+
+    private final Queue<RerankResult> pendingResults = new ConcurrentLinkedQueue<>();
+
+    private ScheduledExecutorService persistenceExecutor;
+
+    /**
+     * Only used by the persistence executor once it has been started.
+     */
+    private BufferedWriter persistenceWriter;
+
+    private long persistedLines;
+
+    public RerankResultCache(EsFieldsConfig esFieldsConfig, MeterRegistry meterRegistry) {
+        EsFieldsConfig.RerankCache rerankCache = esFieldsConfig.getRerankCache();
+        Duration ttl = rerankCache.getTtl();
+
+        this.esFieldsConfig = esFieldsConfig;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(rerankCache.getMaximumSize())
+                .expireAfter(Expiry.writing((String key, RerankResult result) -> remainingTtl(result, ttl)))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "openAIRerank");
+
+        String file = rerankCache.getPersistenceFile();
+        this.persistenceFile = file == null || file.isBlank() ? null : Path.of(file);
+        if (isEnabled() && persistenceFile != null) {
+            load(ttl);
+            long flushInterval = rerankCache.getFlushInterval().toMillis();
+            this.persistenceExecutor = Executors.newSingleThreadScheduledExecutor(
+                    Thread.ofPlatform().name("rerank-cache-writer").daemon().factory());
+            persistenceExecutor.scheduleWithFixedDelay(this::writePending, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public boolean isEnabled() {
+        return Boolean.TRUE.equals(esFieldsConfig.getRerankCache().getEnabled());
+    }
+
+    public String key(String model, String userQuery, List<AICandidateDoc> aiCandidateDocs) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (AICandidateDoc aiCandidateDoc : aiCandidateDocs) {
+                digest.update(aiCandidateDoc.id().getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) '\n');
+            }
+            return model + '\n' + QueryNormalizer.normalize(userQuery).text() + '\n' + HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public Optional<List<String>> get(String key) {
+        return Optional.ofNullable(cache.getIfPresent(key)).map(RerankResult::ids);
+    }
+
+    public void put(String key, List<String> docIds) {
+        RerankResult result = new RerankResult(key, List.copyOf(docIds), System.currentTimeMillis());
+        cache.put(key, result);
+        if (persistenceExecutor != null) {
+            pendingResults.add(result);
+        }
+    }
+
+    /**
+     * Stops the writer and writes the results it hasn't written yet.
+     */
+    @PreDestroy
+    public void close() {
+        if (persistenceExecutor == null) {
+            return;
+        }
+        persistenceExecutor.shutdown();
+        try {
+            if (!persistenceExecutor.awaitTermination(5, TimeUnit.SECONDS)) {
+                log.warn("Rerank cache writer did not stop, pending results are not written to {}", persistenceFile);
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        writePending();
+        closeWriter();
+    }
+
+    /**
+     * Appends the queued results with a single flush and compacts the file once its stale lines outnumber the live
+     * entries.
+     */
+    private void writePending() {
+        if (pendingResults.isEmpty()) {
+            return;
+        }
+        try {
+            if (persistenceWriter == null) {
+                if (persistenceFile.getParent() != null) {
+                    Files.createDirectories(persistenceFile.getParent());
+                }
+                persistenceWriter = Files.newBufferedWriter(persistenceFile, StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+            RerankResult result;
+            while ((result = pendingResults.poll()) != null) {
+                persistenceWriter.write(objectMapper.writeValueAsString(result));
+                persistenceWriter.newLine();
+                persistedLines++;
+            }
+            persistenceWriter.flush();
+        } catch (IOException e) {
+            log.warn("Rerank results could not be written to {}", persistenceFile, e);
+            return;
+        }
+
+        cache.cleanUp();
+        long liveEntries = cache.estimatedSize();
+        if (persistedLines - liveEntries > liveEntries) {
+            closeWriter();
+            compact();
+        }
+    }
+
+    private void closeWriter() {
+        if (persistenceWriter == null) {
+            return;
+        }
+        try {
+            persistenceWriter.close();
+        } catch (IOException e) {
+            log.warn("Rerank cache file {} could not be closed", persistenceFile, e);
+        }
+        persistenceWriter = null;
+    }
+
+    private void load(Duration ttl) {
+        if (!Files.exists(persistenceFile)) {
+            return;
+        }
+        long expiredBefore = System.currentTimeMillis() - ttl.toMillis();
+        try (BufferedReader reader = Files.newBufferedReader(persistenceFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    RerankResult result = objectMapper.readValue(line, RerankResult.class);
+                    if (result.createdAt() > expiredBefore) {
+                        cache.put(result.key(), result);
+                    }
+                } catch (IOException e) {
+                    log.warn("Skipping unreadable line of rerank cache file {}", persistenceFile);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Rerank cache file {} could not be read", persistenceFile, e);
+            return;
+        }
+
+        compact();
+        log.info("{} rerank results have been loaded from {}", cache.estimatedSize(), persistenceFile.toAbsolutePath());
+    }
+
+    /**
+     * Rewrites the persistence file with the live entries only. Results put while it runs are still queued and
+     * are appended afterwards, at worst as a duplicate line.
+     */
+    private void compact() {
+        Path compactedFile = persistenceFile.resolveSibling(persistenceFile.getFileName() + ".tmp");
+        long lines = 0;
+        try (BufferedWriter writer = Files.newBufferedWriter(compactedFile, StandardCharsets.UTF_8)) {
+            for (RerankResult result : cache.asMap().values()) {
+                writer.write(objectMapper.writeValueAsString(result));
+                writer.newLine();
+                lines++;
+            }
+        } catch (IOException e) {
+            log.warn("Rerank cache file {} could not be compacted", persistenceFile, e);
+            return;
+        }
+        try {
+            Files.move(compactedFile, persistenceFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            persistedLines = lines;
+        } catch (IOException e) {
+            log.warn("Rerank cache file {} could not be replaced", persistenceFile, e);
+        }
+    }
+
+    private static Duration remainingTtl(RerankResult result, Duration ttl) {
+        Duration age = Duration.ofMillis(System.currentTimeMillis() - result.createdAt());
+        Duration remaining = ttl.minus(age);
+        return remaining.isNegative() ? Duration.ZERO : remaining;
+    }
+
+    record RerankResult(String key,
+                        List<String> ids,
+                        long createdAt) {
+    }
+}
@@ -0,0 +1,67 @@
+package org.example.service.impl;
+
+import co.elastic.clients.elasticsearch._types.FieldValue;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.enums.QueryType;
+import org.example.exception.InvalidCursorException;
+
+import java.io.IOException;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Opaque pagination cursor: the point in time, the stage that produced the first page and the sort values
+ * ({@code _score}, {@code _shard_doc}) of the last returned hit, encoded as URL-safe base64 JSON.
+ */
+record SearchCursor(String pitId,
+                    QueryType stage,
+                    double score,
+                    long shardDoc) {
+
+    /**
+     * Cursor value a client sends to start cursor pagination.
+     */
+    static final String FIRST_PAGE = "*";
+
+    private static final ObjectMapper objectMapper = new ObjectMapper()
+            .enable(DeserializationFeature.FAIL_ON_MISSING_CREATOR_PROPERTIES)
+            .enable(DeserializationFeature.FAIL_ON_NULL_FOR_PRIMITIVES);
+
+    static SearchCursor of(String pitId, QueryType stage, List<FieldValue> sort) {
+        FieldValue score = sort.get(0);
+        return new SearchCursor(pitId, stage,
+                score.isDouble() ? score.doubleValue() : score.longValue(),
+                sort.get(1).longValue());
+    }
+
+    /**
+     * @param stages the stages that hand out cursors
+     */
+    static SearchCursor decode(String cursor, Collection<QueryType> stages) {
+        SearchCursor searchCursor;
+        try {
+            searchCursor = objectMapper.readValue(Base64.getUrlDecoder().decode(cursor), SearchCursor.class);
+        } catch (IOException | IllegalArgumentException e) {
+            throw new InvalidCursorException("Invalid cursor", e);
+        }
+        if (searchCursor.pitId() == null || searchCursor.pitId().isBlank()
+                || searchCursor.stage() == null || !stages.contains(searchCursor.stage())) {
+            throw new InvalidCursorException("Invalid cursor");
+        }
+        return searchCursor;
+    }
+
+    String encode() {
+        try {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(objectMapper.writeValueAsBytes(this));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    List<FieldValue> searchAfter() {
+        return List.of(FieldValue.of(score), FieldValue.of(shardDoc));
+    }
+}
@@ -0,0 +1,122 @@
+package org.example.service.impl;
+
+import co.elastic.clients.elasticsearch.ElasticsearchAsyncClient;
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import co.elastic.clients.json.JsonpUtils;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.example.config.EsFieldsConfig;
+import org.example.dto.FacetDTO;
+import org.example.dto.ProductDTO;
+import org.example.dto.ProductRequestDTO;
+import org.example.event.IndexVersionChangedEvent;
+import org.example.mappers.ProductMapper;
+import org.example.utils.QueryUtil;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Brand and price range facets of the query that produced a search response, computed by a size 0 aggregation
+ * search and cached per query JSON and brand bucket count. Concurrent misses for the same key share one search.
+ * Facets a stage search already aggregated inline for its own query are cached as they are.
+ * <p>
+ * All entries are dropped when the product index alias is swapped to a new physical index.
+ */
+@Component
+@Slf4j
+public class SearchFacetCache {
+
+    private final ElasticsearchAsyncClient elasticsearchAsyncClient;
+
+    private final EsFieldsConfig esFieldsConfig;
+
+    private final ProductMapper productMapper;
+
+    private final AsyncCache<Key, FacetDTO> cache;
+
+    private final AtomicLong generation = new AtomicLong();
+
+    public SearchFacetCache(ElasticsearchAsyncClient elasticsearchAsyncClient,
+                            EsFieldsConfig esFieldsConfig,
+                            ProductMapper productMapper,
+                            MeterRegistry meterRegistry) {
+        this.elasticsearchAsyncClient = elasticsearchAsyncClient;
+        this.esFieldsConfig = esFieldsConfig;
+        this.productMapper = productMapper;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(esFieldsConfig.getFacetCache().getMaximumSize())
+                .expireAfterWrite(esFieldsConfig.getFacetCache().getTtl())
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "productSearchFacets");
+    }
+
+    /**
+     * Facets of all products matching the query. Facets are an optional part of the response, so a failed
+     * aggregation search yields empty facets instead of failing the search.
+     */
+    public FacetDTO getFacets(ProductRequestDTO productRequestDTO, Query query) {
+        CompletableFuture<FacetDTO> facets = Boolean.TRUE.equals(esFieldsConfig.getFacetCache().getEnabled())
+                ? cache.get(key(productRequestDTO, query), (key, executor) -> searchFacets(productRequestDTO, query))
+                : searchFacets(productRequestDTO, query);
+        try {
+            return facets.join();
+        } catch (CompletionException e) {
+            log.warn("Facets could not be computed, returning the response without facets", e.getCause());
+            return FacetDTO.builder().facetBucketDTO(Collections.emptyMap()).build();
+        }
+    }
+
+    /**
+     * Whether the facets of the query are cached or being computed, so that a stage search doesn't need to
+     * aggregate them itself.
+     */
+    public boolean contains(ProductRequestDTO productRequestDTO, Query query) {
+        return Boolean.TRUE.equals(esFieldsConfig.getFacetCache().getEnabled())
+                && cache.getIfPresent(key(productRequestDTO, query)) != null;
+    }
+
+    public void put(ProductRequestDTO productRequestDTO, Query query, FacetDTO facets) {
+        if (Boolean.TRUE.equals(esFieldsConfig.getFacetCache().getEnabled())) {
+            cache.put(key(productRequestDTO, query), CompletableFuture.completedFuture(facets));
+        }
+    }
+
+    @EventListener
+    public void onIndexVersionChanged(IndexVersionChangedEvent event) {
+        generation.incrementAndGet();
+        cache.synchronous().invalidateAll();
+        log.info("Facet cache invalidated after {} changed to {}", event.indexName(), event.currentVersion());
+    }
+
+    private Key key(ProductRequestDTO productRequestDTO, Query query) {
+        return new Key(
+                JsonpUtils.toJsonString(query, elasticsearchAsyncClient._jsonpMapper()),
+                productRequestDTO.getValidatedSize(esFieldsConfig.getRequest().getDefaultQuerySize()),
+                generation.get());
+    }
+
+    private CompletableFuture<FacetDTO> searchFacets(ProductRequestDTO productRequestDTO, Query query) {
+        return elasticsearchAsyncClient.search(s -> s
+                                .index(esFieldsConfig.getIndex().getProductIndex())
+                                .query(query)
+                                .size(0)
+                                .trackTotalHits(t -> t.enabled(false))
+                                .aggregations(QueryUtil.buildAggregations(productRequestDTO, esFieldsConfig)),
+                        ProductDTO.class)
+                .thenApply(response -> productMapper.mapAggregationsToFacets(response.aggregations()));
+    }
+
+    record Key(String queryJson,
+               int brandBuckets,
+               long generation) {
+    }
+}
@@ -0,0 +1,123 @@
+package org.example.service.impl;
+
+import co.elastic.clients.elasticsearch.core.search.ResponseBody;
+import co.elastic.clients.elasticsearch.core.search.TotalHits;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.config.EsFieldsConfig;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Meters of the search hot path that are not recorded by {@link SearchStageExecutor}: concept lookup, the ES
+ * searches of every stage (client-observed latency next to the {@code took} reported by ES, and hit counts),
+ * response mapping and the OpenAI calls, and the winning stage of every search.
+ * <p>
+ * Also holds the sampled debug log of the stage queries, which used to be logged on every request.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SearchMetrics {
+
+    static final String CONCEPT_LOOKUP_TIMER = "product.search.concepts";
+    static final String ES_LATENCY_TIMER = "product.search.es.latency";
+    static final String ES_TOOK_TIMER = "product.search.es.took";
+    static final String ES_HITS_SUMMARY = "product.search.es.hits";
+    static final String MAPPING_TIMER = "product.search.mapping";
+    static final String OPENAI_TIMER = "openai.requests";
+    static final String OPENAI_TOKENS_SUMMARY = "openai.tokens";
+    static final String WINNER_COUNTER = "product.search.stage.won";
+    static final String NO_WINNER = "none";
+
+    private final EsFieldsConfig esFieldsConfig;
+
+    private final MeterRegistry meterRegistry;
+
+    public <T> T timeConceptLookup(Supplier<T> conceptLookup) {
+        return Timer.builder(CONCEPT_LOOKUP_TIMER)
+                .register(meterRegistry)
+                .record(conceptLookup);
+    }
+
+    public <T> T timeMapping(Supplier<T> mapping) {
+        return Timer.builder(MAPPING_TIMER)
+                .register(meterRegistry)
+                .record(mapping);
+    }
+
+    /**
+     * Records one ES search of the given stage, started at {@code startNanos} ({@link System#nanoTime()}).
+     * The gap between the latency and the {@code took} timer is the time spent on the wire and in (de)serialization.
+     */
+    public void recordSearch(String stage, long startNanos, ResponseBody<?> response) {
+        recordLatency(stage, startNanos);
+        recordSearchResult(stage, response);
+    }
+
+    /**
+     * Client-observed latency only, e.g. of a multi search whose responses are recorded per stage.
+     */
+    public void recordLatency(String stage, long startNanos) {
+        Timer.builder(ES_LATENCY_TIMER)
+                .tag("stage", stage)
+                .register(meterRegistry)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordSearchResult(String stage, ResponseBody<?> response) {
+        Timer.builder(ES_TOOK_TIMER)
+                .tag("stage", stage)
+                .register(meterRegistry)
+                .record(response.took(), TimeUnit.MILLISECONDS);
+        TotalHits totalHits = response.hits().total();
+        DistributionSummary.builder(ES_HITS_SUMMARY)
+                .tag("stage", stage)
+                .register(meterRegistry)
+                .record(totalHits != null ? totalHits.value() : response.hits().hits().size());
+    }
+
+    /**
+     * Winning stage of a search, whether it ran through {@link SearchStageExecutor} or the async chain;
+     * {@link #NO_WINNER} when no stage found products.
+     */
+    public void recordWinner(String stage) {
+        meterRegistry.counter(WINNER_COUNTER, "stage", stage).increment();
+    }
+
+    public void recordOpenAICall(String operation, long startNanos, String outcome) {
+        Timer.builder(OPENAI_TIMER)
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param type {@code prompt} or {@code completion}
+     */
+    public void recordOpenAITokens(String operation, String type, long tokens) {
+        DistributionSummary.builder(OPENAI_TOKENS_SUMMARY)
+                .tag("operation", operation)
+                .tag("type", type)
+                .register(meterRegistry)
+                .record(tokens);
+    }
+
+    /**
+     * Logs the value at debug level for the configured fraction of calls only; its {@code toString} is not
+     * evaluated otherwise.
+     */
+    public void debugSampled(String message, Object value) {
+        Double sampleRate = esFieldsConfig.getSearch().getDebugLogSampleRate();
+        if (log.isDebugEnabled() && sampleRate != null && ThreadLocalRandom.current().nextDouble() < sampleRate) {
+            log.debug("{}: {}", message, value);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package org.example.service.impl;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.example.config.EsFieldsConfig;
+import org.example.dto.ProductResponseDTO;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight for identical concurrent searches: the first request for a key runs the search, requests for the
+ * same key arriving while it is in flight wait for its response (or failure) instead of running the concept lookup,
+ * the ES stages and the OpenAI calls again.
+ * <p>
+ * The flight is registered before the search starts and removed once it completed, also when the search threw an
+ * {@link Error}, so nothing is retained after the search and no request waits on a flight that never completes.
+ * Keys are {@link SearchResultCache.Key}s, which carry the cache generation, so no request joins a search started
+ * before an index swap.
+ * <p>
+ * The waiting requests get their own shallow copy of the response, so setting a field on one of them is not seen
+ * by the others.
+ */
+@Component
+@RequiredArgsConstructor
+public class SearchRequestCoalescer {
+
+    static final String COALESCED_COUNTER = "product.search.coalesced";
+
+    private final EsFieldsConfig esFieldsConfig;
+
+    private final MeterRegistry meterRegistry;
+
+    private final ConcurrentMap<SearchResultCache.Key, CompletableFuture<ProductResponseDTO>> inFlight = new ConcurrentHashMap<>();
+
+    public ProductResponseDTO execute(SearchResultCache.Key key, Supplier<ProductResponseDTO> search) {
+        if (!isEnabled()) {
+            return search.get();
+        }
+
+        CompletableFuture<ProductResponseDTO> flight = new CompletableFuture<>();
+        CompletableFuture<ProductResponseDTO> leader = inFlight.putIfAbsent(key, flight);
+        if (leader != null) {
+            meterRegistry.counter(COALESCED_COUNTER).increment();
+            return copyOf(join(leader));
+        }
+
+        try {
+            ProductResponseDTO response = search.get();
+            flight.complete(response);
+            return response;
+        } catch (Throwable e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    public CompletableFuture<ProductResponseDTO> executeAsync(SearchResultCache.Key key,
+                                                              Supplier<CompletableFuture<ProductResponseDTO>> search) {
+        if (!isEnabled()) {
+            return search.get();
+        }
+
+        CompletableFuture<ProductResponseDTO> flight = new CompletableFuture<>();
+        CompletableFuture<ProductResponseDTO> leader = inFlight.putIfAbsent(key, flight);
+        if (leader != null) {
+            meterRegistry.counter(COALESCED_COUNTER).increment();
+            return leader.thenApply(SearchRequestCoalescer::copyOf);
+        }
+
+        CompletableFuture<ProductResponseDTO> response;
+        try {
+            response = search.get();
+        } catch (Throwable e) {
+            response = CompletableFuture.failedFuture(e);
+        }
+        response.whenComplete((productResponseDTO, e) -> {
+            inFlight.remove(key, flight);
+            if (e != null) {
+                flight.completeExceptionally(e);
+            } else {
+                flight.complete(productResponseDTO);
+            }
+        });
+        return flight.copy();
+    }
+
+    private boolean isEnabled() {
+        return Boolean.TRUE.equals(esFieldsConfig.getSearch().getCoalescingEnabled());
+    }
+
+    private static ProductResponseDTO join(CompletableFuture<ProductResponseDTO> leader) {
+        try {
+            return leader.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    private static ProductResponseDTO copyOf(ProductResponseDTO productResponseDTO) {
+        return productResponseDTO.toBuilder().build();
+    }
+}
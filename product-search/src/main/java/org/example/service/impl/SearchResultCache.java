@@ -0,0 +1,84 @@
+package org.example.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.example.config.EsFieldsConfig;
+import org.example.dto.ProductRequestDTO;
+import org.example.dto.ProductResponseDTO;
+import org.example.event.IndexVersionChangedEvent;
+import org.example.utils.QueryNormalizer;
+import org.example.utils.QueryUtil;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded cache of full search responses keyed by the normalized query text, size and page.
+ * <p>
+ * All entries are dropped when the product index alias is swapped to a new physical index. A response that
+ * was computed while the cache was being invalidated is not stored, so results of the previous index can't
+ * survive the swap.
+ */
+@Component
+@Slf4j
+public class SearchResultCache {
+
+    private final EsFieldsConfig esFieldsConfig;
+
+    private final Cache<Key, ProductResponseDTO> cache;
+
+    private final AtomicLong generation = new AtomicLong();
+
+    public SearchResultCache(EsFieldsConfig esFieldsConfig, MeterRegistry meterRegistry) {
+        this.esFieldsConfig = esFieldsConfig;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(esFieldsConfig.getResultCache().getMaximumSize())
+                .expireAfterWrite(esFieldsConfig.getResultCache().getTtl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "productSearchResults");
+    }
+
+    public boolean isEnabled() {
+        return Boolean.TRUE.equals(esFieldsConfig.getResultCache().getEnabled());
+    }
+
+    public Key key(ProductRequestDTO productRequestDTO) {
+        return new Key(
+                QueryNormalizer.normalize(productRequestDTO.queryText()).text(),
+                productRequestDTO.getValidatedSize(esFieldsConfig.getRequest().getDefaultQuerySize()),
+                productRequestDTO.getValidatedPage(esFieldsConfig.getRequest().getDefaultQueryPage()),
+                QueryUtil.resolveProjectedFields(productRequestDTO, esFieldsConfig),
+                generation.get());
+    }
+
+    public Optional<ProductResponseDTO> get(Key key) {
+        return Optional.ofNullable(cache.getIfPresent(key));
+    }
+
+    public void put(Key key, ProductResponseDTO productResponseDTO) {
+        if (key.generation() == generation.get()) {
+            cache.put(key, productResponseDTO);
+        }
+    }
+
+    @EventListener
+    public void onIndexVersionChanged(IndexVersionChangedEvent event) {
+        generation.incrementAndGet();
+        cache.invalidateAll();
+        log.info("Search result cache invalidated after {} changed to {}", event.indexName(), event.currentVersion());
+    }
+
+    public record Key(String normalizedQuery,
+                      int size,
+                      int page,
+                      List<String> fields,
+                      long generation) {
+    }
+}
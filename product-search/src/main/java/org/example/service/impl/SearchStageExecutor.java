@@ -0,0 +1,194 @@
+package org.example.service.impl;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.dto.ProductResponseDTO;
+import org.example.exception.SearchServiceUnavailableException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Runs the search fallback chain and returns the response of the first stage, in priority order, that finds products.
+ * <p>
+ * In hedged mode the retrieval of the next stage is started on the stage executor when the current stage has not
+ * returned within the hedge delay, or as soon as it returned empty. A stage only wins once every higher-priority
+ * stage returned empty, and the retrievals of all lower-priority stages are cancelled when it does.
+ * The completion of a stage, e.g. the LLM rerank, is never run speculatively.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SearchStageExecutor {
+
+    static final String STAGE_TIMER = "product.search.stage";
+    static final String HEDGE_COUNTER = "product.search.stage.hedged";
+
+    private static final String RETRIEVAL = "retrieval";
+    private static final String COMPLETION = "completion";
+
+    private final ExecutorService searchStageExecutorService;
+
+    private final MeterRegistry meterRegistry;
+
+    private final SearchMetrics searchMetrics;
+
+    public Optional<ProductResponseDTO> execute(List<SearchStage<?>> stages) {
+        for (SearchStage<?> stage : stages) {
+            Optional<ProductResponseDTO> response = executeInline(stage);
+            if (response.isPresent()) {
+                searchMetrics.recordWinner(stage.name());
+                return response;
+            }
+        }
+        searchMetrics.recordWinner(SearchMetrics.NO_WINNER);
+        return Optional.empty();
+    }
+
+    public Optional<ProductResponseDTO> executeHedged(List<SearchStage<?>> stages, Duration hedgeDelay) {
+        List<RunningStage<?>> runningStages = new ArrayList<>(stages.size());
+        try {
+            runningStages.add(start(stages.get(0)));
+            for (int i = 0; i < stages.size(); i++) {
+                RunningStage<?> current = runningStages.get(i);
+                boolean nextNotStarted = i + 1 < stages.size() && runningStages.size() == i + 1;
+
+                if (nextNotStarted && !current.awaitRetrieval(hedgeDelay)) {
+                    SearchStage<?> next = stages.get(i + 1);
+                    log.debug("Stage {} did not return within {}, starting stage {}", current.stage.name(), hedgeDelay, next.name());
+                    meterRegistry.counter(HEDGE_COUNTER, "stage", next.name()).increment();
+                    runningStages.add(start(next));
+                }
+
+                Optional<ProductResponseDTO> response = current.complete();
+                if (response.isPresent()) {
+                    searchMetrics.recordWinner(current.stage.name());
+                    return response;
+                }
+
+                if (i + 1 < stages.size() && runningStages.size() == i + 1) {
+                    runningStages.add(start(stages.get(i + 1)));
+                }
+            }
+            searchMetrics.recordWinner(SearchMetrics.NO_WINNER);
+            return Optional.empty();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new SearchServiceUnavailableException(e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SearchServiceUnavailableException("Search was interrupted");
+        } finally {
+            runningStages.forEach(RunningStage::cancel);
+        }
+    }
+
+    private <T> Optional<ProductResponseDTO> executeInline(SearchStage<T> stage) {
+        return complete(stage, retrieve(stage, () -> false));
+    }
+
+    private <T> RunningStage<T> start(SearchStage<T> stage) {
+        return new RunningStage<>(stage);
+    }
+
+    private <T> Optional<T> retrieve(SearchStage<T> stage, BooleanSupplier cancelled) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            Optional<T> retrieved = stage.retrieval().get();
+            outcome = retrieved.isPresent() ? "hits" : "empty";
+            return retrieved;
+        } finally {
+            sample.stop(stageTimer(stage, RETRIEVAL, cancelled.getAsBoolean() ? "cancelled" : outcome));
+        }
+    }
+
+    private <T> Optional<ProductResponseDTO> complete(SearchStage<T> stage, Optional<T> retrieved) {
+        if (retrieved.isEmpty()) {
+            return Optional.empty();
+        }
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            Optional<ProductResponseDTO> response = stage.completion().apply(retrieved.get());
+            outcome = response.isPresent() ? "hits" : "empty";
+            return response;
+        } finally {
+            sample.stop(stageTimer(stage, COMPLETION, outcome));
+        }
+    }
+
+    private Timer stageTimer(SearchStage<?> stage, String phase, String outcome) {
+        return Timer.builder(STAGE_TIMER)
+                .tag("stage", stage.name())
+                .tag("phase", phase)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /**
+     * One stage of the fallback chain. The retrieval may run speculatively and must be safe to cancel,
+     * the completion runs on the calling thread only for the stage whose turn it is.
+     */
+    public record SearchStage<T>(String name,
+                                 Supplier<Optional<T>> retrieval,
+                                 Function<T, Optional<ProductResponseDTO>> completion) {
+
+        public static SearchStage<ProductResponseDTO> of(String name, Supplier<Optional<ProductResponseDTO>> search) {
+            return new SearchStage<>(name, search, Optional::of);
+        }
+    }
+
+    private class RunningStage<T> {
+
+        private final SearchStage<T> stage;
+        private final Future<Optional<T>> retrieval;
+        private volatile boolean cancelled;
+
+        private RunningStage(SearchStage<T> stage) {
+            this.stage = stage;
+            this.retrieval = searchStageExecutorService.submit(() -> retrieve(stage, () -> cancelled));
+        }
+
+        /**
+         * @return {@code true} if the retrieval finished within the timeout
+         */
+        private boolean awaitRetrieval(Duration timeout) throws InterruptedException {
+            try {
+                retrieval.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+                return true;
+            } catch (TimeoutException e) {
+                return false;
+            } catch (ExecutionException e) {
+                return true;
+            }
+        }
+
+        private Optional<ProductResponseDTO> complete() throws InterruptedException, ExecutionException {
+            return SearchStageExecutor.this.complete(stage, retrieval.get());
+        }
+
+        private void cancel() {
+            if (!retrieval.isDone()) {
+                cancelled = true;
+                retrieval.cancel(true);
+            }
+        }
+    }
+}
@@ -8,47 +8,86 @@ import java.util.List;
 @UtilityClass
 public class AIPromptUtil {
 
+    /**
+     * Rough token estimate used for the prompt budget, OpenAI tokenizers average about 4 characters per token.
+     */
+    private static final int CHARS_PER_TOKEN = 4;
+
+    private static final String PROMPT_PREFIX = """
+            You are a product search ranking system.
+            Your task is to select the most relevant product IDs
+            based strictly on the user query.
+            
+            Rules:
+            - Consider product names only
+            - Do NOT invent products
+            - Return only IDs that best match the query
+            - Order IDs from best to worst
+            - If none are relevant, return an empty list
+            - Limit 20 products or less
+            - Return in JSON format
+            
+            User query:
+            """;
+
+    private static final String CANDIDATES_HEADER = "\n\nCandidate products:\n";
+
+    private static final String CANDIDATE_ID = "- ID: ";
+
+    private static final String CANDIDATE_NAME = ", Name: ";
+
+    private static final String PROMPT_SUFFIX = """
+            Output format:
+            ["id1","id2","id3"]
+            """;
+
+    private static final int FIXED_LENGTH = PROMPT_PREFIX.length() + CANDIDATES_HEADER.length() + PROMPT_SUFFIX.length();
+
+    private static final int CANDIDATE_OVERHEAD = CANDIDATE_ID.length() + CANDIDATE_NAME.length() + 1;
+
+    /**
+     * @return the leading candidates, in their given order, whose prompt stays within {@code maxPromptTokens}
+     */
+    public List<AICandidateDoc> limitToTokenBudget(String userQuery, List<AICandidateDoc> docs, int maxPromptTokens) {
+        long remainingChars = (long) maxPromptTokens * CHARS_PER_TOKEN - FIXED_LENGTH - userQuery.length();
+        int count = 0;
+        for (AICandidateDoc doc : docs) {
+            remainingChars -= candidateLength(doc);
+            if (remainingChars < 0) {
+                break;
+            }
+            count++;
+        }
+        return count == docs.size() ? docs : docs.subList(0, count);
+    }
+
     public String buildAIPrompt(
             String userQuery,
             List<AICandidateDoc> docs
     ) {
-        StringBuilder sb = new StringBuilder();
-
-        sb.append("""
-                You are a product search ranking system.
-                Your task is to select the most relevant product IDs
-                based strictly on the user query.
-                
-                Rules:
-                - Consider product names only
-                - Do NOT invent products
-                - Return only IDs that best match the query
-                - Order IDs from best to worst
-                - If none are relevant, return an empty list
-                - Limit 20 products or less
-                - Return in JSON format
-                
-                User query:
-                """);
-
-        sb.append(userQuery).append("\n\n");
-
-        sb.append("Candidate products:\n");
-
-        docs.forEach(doc ->
-                sb.append("- ID: ")
-                        .append(doc.id())
-                        .append(", Name: ")
-                        .append(doc.name())
-                        .append("\n")
-        );
-
-        sb.append("""
-                Output format:
-                ["id1","id2","id3"]
-                """);
-
-        return sb.toString();
+        int length = FIXED_LENGTH + userQuery.length();
+        for (AICandidateDoc doc : docs) {
+            length += candidateLength(doc);
+        }
+
+        StringBuilder sb = new StringBuilder(length)
+                .append(PROMPT_PREFIX)
+                .append(userQuery)
+                .append(CANDIDATES_HEADER);
+
+        for (AICandidateDoc doc : docs) {
+            sb.append(CANDIDATE_ID)
+                    .append(doc.id())
+                    .append(CANDIDATE_NAME)
+                    .append(doc.name())
+                    .append('\n');
+        }
+
+        return sb.append(PROMPT_SUFFIX).toString();
+    }
+
+    private int candidateLength(AICandidateDoc doc) {
+        return CANDIDATE_OVERHEAD + doc.id().length() + String.valueOf(doc.name()).length();
     }
 
 }
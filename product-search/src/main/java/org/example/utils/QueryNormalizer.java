@@ -0,0 +1,151 @@
+package org.example.utils;
+
+import lombok.experimental.UtilityClass;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Query text normalization mirroring the {@code text_analyzer} of the product index: standard tokenization
+ * (letters and digits, with {@code '} and {@code .} kept between them and {@code ,} between digits),
+ * lowercase and ASCII folding. The normalized text, the tokens joined by single spaces, is the key of every
+ * query keyed cache.
+ * <p>
+ * Already normalized queries (lowercase ASCII letters and digits separated by single spaces) are returned as is;
+ * otherwise the query is rewritten in a single pass, and only non-ASCII characters are decomposed.
+ */
+@UtilityClass
+public class QueryNormalizer {
+
+    public static NormalizedQuery normalize(String queryText) {
+        if (isNormalized(queryText)) {
+            return new NormalizedQuery(queryText, splitNormalized(queryText));
+        }
+
+        int length = queryText.length();
+        StringBuilder text = new StringBuilder(length);
+        List<String> tokens = new ArrayList<>();
+        int tokenStart = -1;
+        int previous = ' ';
+        for (int i = 0; i < length; ) {
+            int codePoint = queryText.codePointAt(i);
+            int next = i + Character.charCount(codePoint);
+            int following = next < length ? queryText.codePointAt(next) : ' ';
+
+            if (isTokenChar(codePoint, previous, following)) {
+                if (tokenStart < 0) {
+                    if (!text.isEmpty()) {
+                        text.append(' ');
+                    }
+                    tokenStart = text.length();
+                }
+                appendFolded(text, Character.toLowerCase(codePoint));
+            } else if (tokenStart >= 0) {
+                addToken(text, tokenStart, tokens);
+                tokenStart = -1;
+            }
+            previous = codePoint;
+            i = next;
+        }
+        if (tokenStart >= 0) {
+            addToken(text, tokenStart, tokens);
+        }
+        return new NormalizedQuery(text.toString(), List.copyOf(tokens));
+    }
+
+    private static boolean isNormalized(String queryText) {
+        int length = queryText.length();
+        if (length == 0 || queryText.charAt(0) == ' ' || queryText.charAt(length - 1) == ' ') {
+            return length == 0;
+        }
+        char previous = 'a';
+        for (int i = 0; i < length; i++) {
+            char c = queryText.charAt(i);
+            boolean normalizedChar = (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || (c == ' ' && previous != ' ');
+            if (!normalizedChar) {
+                return false;
+            }
+            previous = c;
+        }
+        return true;
+    }
+
+    private static List<String> splitNormalized(String normalizedText) {
+        if (normalizedText.isEmpty()) {
+            return List.of();
+        }
+        List<String> tokens = new ArrayList<>();
+        int start = 0;
+        int space;
+        while ((space = normalizedText.indexOf(' ', start)) >= 0) {
+            tokens.add(normalizedText.substring(start, space));
+            start = space + 1;
+        }
+        tokens.add(normalizedText.substring(start));
+        return List.copyOf(tokens);
+    }
+
+    /**
+     * Word characters of the standard tokenizer; apostrophes and dots only join letters or digits
+     * ({@code o'neil}, {@code 2.5}), commas only digits ({@code 1,000}).
+     */
+    private static boolean isTokenChar(int codePoint, int previous, int following) {
+        if (Character.isLetterOrDigit(codePoint) || codePoint == '_' || isMark(codePoint)) {
+            return true;
+        }
+        if (codePoint == '\'' || codePoint == '.') {
+            return Character.isLetterOrDigit(previous) && Character.isLetterOrDigit(following);
+        }
+        if (codePoint == ',') {
+            return Character.isDigit(previous) && Character.isDigit(following);
+        }
+        return false;
+    }
+
+    private static boolean isMark(int codePoint) {
+        int type = Character.getType(codePoint);
+        return type == Character.NON_SPACING_MARK || type == Character.COMBINING_SPACING_MARK || type == Character.ENCLOSING_MARK;
+    }
+
+    /**
+     * ASCII folding of one lowercase code point: accented Latin letters lose their diacritics, a few letters
+     * without a decomposition are spelled out, combining marks are dropped and other scripts are kept.
+     */
+    private static void appendFolded(StringBuilder text, int codePoint) {
+        if (codePoint < 0x80) {
+            text.append((char) codePoint);
+            return;
+        }
+        switch (codePoint) {
+            case 'ß' -> text.append("ss");
+            case 'æ' -> text.append("ae");
+            case 'œ' -> text.append("oe");
+            case 'ø' -> text.append('o');
+            case 'đ', 'ð' -> text.append('d');
+            case 'ł' -> text.append('l');
+            case 'þ' -> text.append("th");
+            case 'ı' -> text.append('i');
+            default -> {
+                if (isMark(codePoint)) {
+                    return;
+                }
+                int base = Normalizer.normalize(Character.toString(codePoint), Normalizer.Form.NFD).codePointAt(0);
+                text.appendCodePoint(base < 0x80 ? base : codePoint);
+            }
+        }
+    }
+
+    private static void addToken(StringBuilder text, int tokenStart, List<String> tokens) {
+        if (tokenStart == text.length()) {
+            // the token only consisted of dropped combining marks
+            text.setLength(Math.max(tokenStart - 1, 0));
+            return;
+        }
+        tokens.add(text.substring(tokenStart));
+    }
+
+    public record NormalizedQuery(String text,
+                                  List<String> tokens) {
+    }
+}
@@ -0,0 +1,132 @@
+package org.example.utils;
+
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import org.example.config.EsFieldsConfig;
+import org.example.dto.ConceptDocDTO;
+import org.example.enums.QueryType;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Query clauses of one search request, built in a single pass over the concept matches. The stage queries
+ * (STRICT, CATEGORY_ONLY_STRICT_MATCH, VECTOR/AI_SEARCH, AI candidates) are assembled once from the shared,
+ * immutable clauses instead of rebuilding the filters per stage and walking the built tree to find the
+ * category terms again.
+ */
+public final class QueryPlan {
+
+    private static final Query MATCH_ALL = Query.of(q -> q.matchAll(m -> m));
+
+    private final List<Query> mustQueries;
+
+    private final List<Query> shouldQueries;
+
+    private final String productNameFieldTokens;
+
+    private final Query strictQuery;
+
+    private final Query categoryOnlyQuery;
+
+    private final Query categoryFilterQuery;
+
+    private final Query aiCandidateQuery;
+
+    private QueryPlan(List<Query> filterQueries,
+                      List<Query> categoryFilterQueries,
+                      String productNameFieldTokens,
+                      EsFieldsConfig esFieldsConfig) {
+        this.productNameFieldTokens = productNameFieldTokens;
+        this.mustQueries = QueryUtil.createMustQuery(productNameFieldTokens, esFieldsConfig.getFields().getName());
+        this.shouldQueries = QueryUtil.createShouldQuery(productNameFieldTokens, esFieldsConfig.getFields().getNameShingles());
+        this.strictQuery = buildBoolQuery(filterQueries, mustQueries, shouldQueries);
+        this.categoryOnlyQuery = buildBoolQuery(categoryFilterQueries, mustQueries, shouldQueries);
+        this.categoryFilterQuery = categoryFilterQueries.isEmpty()
+                ? MATCH_ALL
+                : Query.of(q -> q.bool(b -> b.filter(categoryFilterQueries)));
+        this.aiCandidateQuery = productNameFieldTokens.isBlank()
+                ? categoryFilterQuery
+                : Query.of(q -> q.bool(b -> b
+                        .filter(categoryFilterQuery)
+                        .should(s -> s.match(mt -> mt.field(esFieldsConfig.getFields().getName()).query(productNameFieldTokens)))));
+    }
+
+    /**
+     * Root concepts become one {@code bool.should} of keyword terms per concept type, the sku concepts one nested
+     * filter. The category terms are collected on the way for the category-only stages.
+     */
+    public static QueryPlan of(List<ConceptDocDTO> conceptDocDTOList, String productNameFieldTokens, EsFieldsConfig esFieldsConfig) {
+        String skusPath = esFieldsConfig.getNested().getSkus();
+        String keywordSuffix = "." + esFieldsConfig.getFields().getKeyword();
+        String categoryKeyword = esFieldsConfig.getFields().getCategoryKeyword();
+
+        Map<String, List<Query>> rootTermsByType = new LinkedHashMap<>();
+        List<Query> categoryFilterQueries = new ArrayList<>();
+        List<Query> nestedSkuQueries = new ArrayList<>();
+        for (ConceptDocDTO conceptDocDTO : conceptDocDTOList) {
+            if (conceptDocDTO.type().startsWith(skusPath)) {
+                nestedSkuQueries.add(termQuery(conceptDocDTO.type(), conceptDocDTO.originalTerm()));
+                continue;
+            }
+
+            String field = conceptDocDTO.type() + keywordSuffix;
+            Query termQuery = termQuery(field, conceptDocDTO.originalTerm());
+            rootTermsByType.computeIfAbsent(conceptDocDTO.type(), type -> new ArrayList<>()).add(termQuery);
+            if (field.equals(categoryKeyword)) {
+                categoryFilterQueries.add(termQuery);
+            }
+        }
+
+        List<Query> filterQueries = new ArrayList<>(rootTermsByType.size() + 1);
+        for (List<Query> shouldTerms : rootTermsByType.values()) {
+            filterQueries.add(Query.of(q -> q.bool(b -> b.should(shouldTerms))));
+        }
+        if (!nestedSkuQueries.isEmpty()) {
+            filterQueries.add(Query.of(q -> q.nested(n -> n
+                    .path(skusPath)
+                    .query(nq -> nq.bool(b -> b.filter(f -> f.bool(sb -> sb.must(nestedSkuQueries))))))));
+        }
+
+        return new QueryPlan(List.copyOf(filterQueries), List.copyOf(categoryFilterQueries), productNameFieldTokens, esFieldsConfig);
+    }
+
+    public Query query(QueryType queryType) {
+        return switch (queryType) {
+            case STRICT -> strictQuery;
+            case CATEGORY_ONLY_STRICT_MATCH -> categoryOnlyQuery;
+            case VECTOR, AI_SEARCH -> categoryFilterQuery;
+        };
+    }
+
+    /**
+     * LLM rerank candidates: the products of the detected categories, pre-ranked by BM25 on the residual name tokens.
+     */
+    public Query aiCandidateQuery() {
+        return aiCandidateQuery;
+    }
+
+    public String productNameFieldTokens() {
+        return productNameFieldTokens;
+    }
+
+    private static Query termQuery(String field, String value) {
+        return Query.of(q -> q.term(t -> t.field(field).value(value)));
+    }
+
+    private static Query buildBoolQuery(List<Query> filterQueries, List<Query> mustQueries, List<Query> shouldQueries) {
+        return Query.of(q -> q.bool(b -> {
+            if (!filterQueries.isEmpty()) {
+                b.filter(filterQueries);
+            }
+            if (!mustQueries.isEmpty()) {
+                b.must(mustQueries);
+            }
+            if (!shouldQueries.isEmpty()) {
+                b.should(shouldQueries);
+            }
+            return b;
+        }));
+    }
+}
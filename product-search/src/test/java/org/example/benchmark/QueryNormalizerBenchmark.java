@@ -0,0 +1,57 @@
+package org.example.benchmark;
+
+import org.example.utils.QueryNormalizer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the previous query handling (the tokens split on single spaces, the cache key normalized by a
+ * whitespace regex) with {@link QueryNormalizer}, for a normalized, a mixed case and an accented query.
+ * <p>
+ * Run {@link #main} with the test classpath, e.g. from the IDE.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+public class QueryNormalizerBenchmark {
+
+    @Param({"samsung galaxy s24 ultra", "Samsung  Galaxy S24, Ultra!", "Café Crème Brûlée 1,000 ml"})
+    private String queryText;
+
+    @Benchmark
+    public void splitAndRegex(Blackhole blackhole) {
+        blackhole.consume(List.of(queryText.toLowerCase().split(" ")));
+        blackhole.consume(queryText.trim().toLowerCase(Locale.ROOT).replaceAll("\\s+", " "));
+    }
+
+    @Benchmark
+    public void queryNormalizer(Blackhole blackhole) {
+        blackhole.consume(QueryNormalizer.normalize(queryText));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(QueryNormalizerBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+}
@@ -0,0 +1,175 @@
+package org.example.benchmark;
+
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import org.example.config.EsFieldsConfig;
+import org.example.dto.ConceptDocDTO;
+import org.example.enums.QueryType;
+import org.example.utils.QueryPlan;
+import org.example.utils.QueryUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Compares the previous per-stage query building (filters grouped by a stream collector, every stage query
+ * rebuilt by strategy and the category terms found again by walking the built filters) with {@link QueryPlan},
+ * for the queries of one request that falls through STRICT, CATEGORY_ONLY_STRICT_MATCH, VECTOR and AI_SEARCH.
+ * The {@code gc.alloc.rate.norm} column of the gc profiler is the allocation per request.
+ * <p>
+ * Run {@link #main} with the test classpath, e.g. from the IDE.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+public class QueryPlanBenchmark {
+
+    private static final String PRODUCT_NAME_FIELD_TOKENS = "galaxy ultra";
+
+    private EsFieldsConfig esFieldsConfig;
+
+    private List<ConceptDocDTO> conceptDocDTOList;
+
+    @Setup
+    public void setUp() {
+        EsFieldsConfig.Fields fields = new EsFieldsConfig.Fields();
+        fields.setName("name");
+        fields.setNameShingles("name.shingles");
+        fields.setKeyword("keyword");
+        fields.setCategoryKeyword("category.keyword");
+
+        EsFieldsConfig.Nested nested = new EsFieldsConfig.Nested();
+        nested.setSkus("skus");
+
+        esFieldsConfig = new EsFieldsConfig();
+        esFieldsConfig.setFields(fields);
+        esFieldsConfig.setNested(nested);
+
+        conceptDocDTOList = List.of(
+                concept("samsung", "brand"),
+                concept("phone", "category"),
+                concept("smartphone", "category"),
+                concept("black", "skus.color"),
+                concept("xl", "skus.size"));
+    }
+
+    @Benchmark
+    public void perStageQueries(Blackhole blackhole) {
+        List<Query> filterQueries = createFilterQuery(conceptDocDTOList);
+        List<Query> mustQueries = QueryUtil.createMustQuery(PRODUCT_NAME_FIELD_TOKENS, esFieldsConfig.getFields().getName());
+        List<Query> shouldQueries = QueryUtil.createShouldQuery(PRODUCT_NAME_FIELD_TOKENS, esFieldsConfig.getFields().getNameShingles());
+
+        blackhole.consume(buildQueryByStrategy(QueryType.STRICT, filterQueries, mustQueries, shouldQueries));
+        blackhole.consume(buildQueryByStrategy(QueryType.CATEGORY_ONLY_STRICT_MATCH, filterQueries, mustQueries, shouldQueries));
+        blackhole.consume(buildQueryByStrategy(QueryType.VECTOR, filterQueries, List.of(), List.of()));
+        Query candidateFilterQuery = buildQueryByStrategy(QueryType.AI_SEARCH, filterQueries, List.of(), List.of());
+        blackhole.consume(Query.of(q -> q.bool(b -> b
+                .filter(candidateFilterQuery)
+                .should(s -> s.match(mt -> mt.field(esFieldsConfig.getFields().getName()).query(PRODUCT_NAME_FIELD_TOKENS))))));
+    }
+
+    @Benchmark
+    public void queryPlan(Blackhole blackhole) {
+        QueryPlan queryPlan = QueryPlan.of(conceptDocDTOList, PRODUCT_NAME_FIELD_TOKENS, esFieldsConfig);
+
+        blackhole.consume(queryPlan.query(QueryType.STRICT));
+        blackhole.consume(queryPlan.query(QueryType.CATEGORY_ONLY_STRICT_MATCH));
+        blackhole.consume(queryPlan.query(QueryType.VECTOR));
+        blackhole.consume(queryPlan.aiCandidateQuery());
+    }
+
+    private List<Query> createFilterQuery(List<ConceptDocDTO> conceptDocDTOList) {
+        String skusPath = esFieldsConfig.getNested().getSkus();
+        List<Query> filterQueries = new ArrayList<>();
+
+        Map<String, List<ConceptDocDTO>> rootFilters = conceptDocDTOList.stream()
+                .filter(conceptDocDTO -> !conceptDocDTO.type().startsWith(skusPath))
+                .collect(Collectors.groupingBy(ConceptDocDTO::type));
+        rootFilters.forEach((field, values) -> {
+            List<Query> shouldTerms = values.stream()
+                    .map(dto -> Query.of(q -> q.term(t -> t
+                            .field(field + "." + esFieldsConfig.getFields().getKeyword())
+                            .value(dto.originalTerm()))))
+                    .toList();
+            filterQueries.add(Query.of(q -> q.bool(b -> b.should(shouldTerms))));
+        });
+
+        List<Query> nestedSkuQueries = conceptDocDTOList.stream()
+                .filter(conceptDocDTO -> conceptDocDTO.type().startsWith(skusPath))
+                .map(conceptDocDTO -> Query.of(q -> q.term(t -> t.field(conceptDocDTO.type()).value(conceptDocDTO.originalTerm()))))
+                .toList();
+        if (!nestedSkuQueries.isEmpty()) {
+            filterQueries.add(Query.of(q -> q.nested(n -> n
+                    .path(skusPath)
+                    .query(nq -> nq.bool(b -> b.filter(f -> f.bool(sb -> sb.must(nestedSkuQueries))))))));
+        }
+        return filterQueries;
+    }
+
+    private Query buildQueryByStrategy(QueryType queryType, List<Query> filterQueries, List<Query> mustQueries, List<Query> shouldQueries) {
+        return switch (queryType) {
+            case STRICT -> buildQuery(filterQueries, mustQueries, shouldQueries);
+            case CATEGORY_ONLY_STRICT_MATCH -> buildQuery(buildCategoryFilterOnly(filterQueries), mustQueries, shouldQueries);
+            case VECTOR, AI_SEARCH -> {
+                List<Query> categoryFilterQueries = buildCategoryFilterOnly(filterQueries);
+                yield categoryFilterQueries.isEmpty()
+                        ? Query.of(q -> q.matchAll(m -> m))
+                        : Query.of(q -> q.bool(b -> b.filter(categoryFilterQueries)));
+            }
+        };
+    }
+
+    private List<Query> buildCategoryFilterOnly(List<Query> filterQueries) {
+        return filterQueries.stream()
+                .filter(Query::isBool)
+                .flatMap(q -> q.bool().should().stream())
+                .filter(Query::isTerm)
+                .filter(q -> esFieldsConfig.getFields().getCategoryKeyword().equals(q.term().field()))
+                .toList();
+    }
+
+    private static Query buildQuery(List<Query> filterQueries, List<Query> mustQueries, List<Query> shouldQueries) {
+        return Query.of(q -> q.bool(b -> {
+            if (!filterQueries.isEmpty()) {
+                b.filter(filterQueries);
+            }
+            if (!mustQueries.isEmpty()) {
+                b.must(mustQueries);
+            }
+            if (!shouldQueries.isEmpty()) {
+                b.should(shouldQueries);
+            }
+            return b;
+        }));
+    }
+
+    private static ConceptDocDTO concept(String term, String type) {
+        return ConceptDocDTO.builder().searchTerms(List.of(term)).originalTerm(term).type(type).build();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(QueryPlanBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+}
@@ -0,0 +1,128 @@
+package org.example.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Manual load test comparing the blocking {@code /v1/products} endpoint with {@code /v1/products/async}
+ * against a running service, for every given concurrency level. Prints throughput, latency percentiles and
+ * the peak live thread count and used heap/non-heap memory of the service (read from the actuator).
+ * <p>
+ * Usage: {@code SearchLoadGenerator [baseUrl] [concurrencyLevels] [requestsPerLevel] [queryText] [paths]},
+ * e.g. {@code http://localhost:8081 1000,2500,5000,10000 20000 "samsung phone" /v1/products}. To compare the
+ * execution models, run it once against the service started with {@code SEARCH_VIRTUAL_THREADS=false}
+ * (platform thread pool) and once with the default virtual threads.
+ */
+public class SearchLoadGenerator {
+
+    private static final String LIVE_THREADS_METRIC = "jvm.threads.live";
+
+    private static final String USED_MEMORY_METRIC = "jvm.memory.used";
+
+    private static final Pattern METRIC_VALUE = Pattern.compile("\"value\"\\s*:\\s*([0-9.eE+-]+)");
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:8081";
+        List<Integer> concurrencyLevels = Arrays.stream((args.length > 1 ? args[1] : "1000,2500,5000,10000").split(","))
+                .map(Integer::parseInt)
+                .toList();
+        int requests = args.length > 2 ? Integer.parseInt(args[2]) : 20_000;
+        String queryText = args.length > 3 ? args[3] : "samsung phone";
+        List<String> paths = List.of((args.length > 4 ? args[4] : "/v1/products,/v1/products/async").split(","));
+
+        HttpClient httpClient = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        String body = "{\"queryText\":\"" + queryText + "\"}";
+
+        for (String path : paths) {
+            run(httpClient, baseUrl, path, body, concurrencyLevels.get(0), requests / 10);
+            for (int concurrency : concurrencyLevels) {
+                run(httpClient, baseUrl, path, body, concurrency, requests);
+            }
+        }
+    }
+
+    private static void run(HttpClient httpClient, String baseUrl, String path, String body,
+                            int concurrency, int requests) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .timeout(Duration.ofSeconds(30))
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>(requests));
+        AtomicInteger errors = new AtomicInteger();
+        AtomicInteger remaining = new AtomicInteger(requests);
+        int peakThreads = 0;
+        long peakMemory = 0;
+
+        long start = System.nanoTime();
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> workers = new ArrayList<>(concurrency);
+            for (int i = 0; i < concurrency; i++) {
+                workers.add(clients.submit(() -> {
+                    while (remaining.getAndDecrement() > 0) {
+                        long requestStart = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() != 200) {
+                                errors.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                        }
+                        latencies.add(System.nanoTime() - requestStart);
+                    }
+                    return null;
+                }));
+            }
+            while (workers.stream().anyMatch(worker -> !worker.isDone())) {
+                peakThreads = Math.max(peakThreads, (int) metric(httpClient, baseUrl, LIVE_THREADS_METRIC));
+                peakMemory = Math.max(peakMemory, (long) metric(httpClient, baseUrl, USED_MEMORY_METRIC));
+                Thread.sleep(250);
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        List<Long> sorted = new ArrayList<>(latencies);
+        Collections.sort(sorted);
+        System.out.printf("%-20s concurrency=%d requests=%d errors=%d throughput=%.1f req/s p50=%.1fms p95=%.1fms p99=%.1fms"
+                        + " peakServerThreads=%d peakServerMemory=%dMB%n",
+                path, concurrency, sorted.size(), errors.get(), sorted.size() / seconds,
+                percentile(sorted, 0.50), percentile(sorted, 0.95), percentile(sorted, 0.99),
+                peakThreads, peakMemory / (1024 * 1024));
+    }
+
+    private static double percentile(List<Long> sortedNanos, double percentile) {
+        if (sortedNanos.isEmpty()) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sortedNanos.size()) - 1;
+        return sortedNanos.get(Math.max(index, 0)) / 1e6;
+    }
+
+    private static double metric(HttpClient httpClient, String baseUrl, String metricName) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/actuator/metrics/" + metricName)).GET().build();
+        try {
+            Matcher matcher = METRIC_VALUE.matcher(httpClient.send(request, HttpResponse.BodyHandlers.ofString()).body());
+            return matcher.find() ? Double.parseDouble(matcher.group(1)) : 0;
+        } catch (Exception e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package org.example.mappers;
+
+import co.elastic.clients.elasticsearch.core.SearchResponse;
+import co.elastic.clients.json.JsonData;
+import org.example.config.EsFieldsConfig;
+import org.example.dto.ProductDTO;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ProductMapperTest {
+
+    @Test
+    void testDocValuePriceKeepsIndexedPrecision() {
+        SearchResponse<ProductDTO> response = SearchResponse.of(r -> r
+                .took(1)
+                .timedOut(false)
+                .shards(s -> s.total(1).successful(1).failed(0))
+                .hits(h -> h.hits(hit -> hit
+                        .index("product_index")
+                        .id("1")
+                        .source(ProductDTO.builder().name("tech fleece jogger").build())
+                        .fields(Map.of(
+                                "price", JsonData.fromJson("[34.9900016784668]"),
+                                "brand.keyword", JsonData.fromJson("[\"Nike\"]"))))));
+
+        List<ProductDTO> products = new ProductMapper(config()).mapHitsToProducts(response);
+
+        assertEquals(ProductDTO.builder().name("tech fleece jogger").brand("Nike").price(34.99).build(), products.get(0));
+    }
+
+    private static EsFieldsConfig config() {
+        EsFieldsConfig.Request request = new EsFieldsConfig.Request();
+        request.setDocValueFieldsEnabled(true);
+        request.setDocValueFields(Map.of("brand", "brand.keyword", "category", "category.keyword", "price", "price"));
+
+        EsFieldsConfig config = new EsFieldsConfig();
+        config.setRequest(request);
+        return config;
+    }
+}
@@ -0,0 +1,39 @@
+package org.example.service.impl;
+
+import org.example.dto.ConceptDocDTO;
+import org.example.dto.ConceptMatch;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ConceptTrieTest {
+
+    private static final ConceptDocDTO TECH_FLEECE = new ConceptDocDTO(List.of("Tech Fleece"), "tech fleece", "collection");
+    private static final ConceptDocDTO FLEECE = new ConceptDocDTO(List.of("fleece"), "fleece", "material");
+    private static final ConceptDocDTO NIKE = new ConceptDocDTO(List.of("nike"), "nike", "brand");
+
+    private final ConceptTrie conceptTrie = ConceptTrie.builder()
+            .add("tech fleece", TECH_FLEECE)
+            .add("fleece", FLEECE)
+            .add("nike", NIKE)
+            .build();
+
+    @Test
+    void testLongestTermMatchesAndUnmatchedTokensKeepQueryOrder() {
+        ConceptMatch conceptMatch = conceptTrie.match(List.of("black", "nike", "tech", "fleece", "jogger"));
+
+        assertEquals(List.of(NIKE, TECH_FLEECE), conceptMatch.concepts());
+        assertEquals(List.of("black", "jogger"), conceptMatch.unmatchedTokens());
+    }
+
+    @Test
+    void testPartialPhraseFallsBackToShorterTerms() {
+        ConceptMatch conceptMatch = conceptTrie.match(List.of("tech", "jacket", "fleece"));
+
+        assertEquals(List.of(FLEECE), conceptMatch.concepts());
+        assertEquals(List.of("tech", "jacket"), conceptMatch.unmatchedTokens());
+        assertEquals(3, conceptTrie.size());
+    }
+}
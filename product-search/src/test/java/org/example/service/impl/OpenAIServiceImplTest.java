@@ -0,0 +1,156 @@
+package org.example.service.impl;
+
+import com.openai.client.OpenAIClient;
+import com.openai.client.okhttp.OpenAIOkHttpClient;
+import com.sun.net.httpserver.HttpServer;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.config.EsFieldsConfig;
+import org.example.config.OpenAIConfig;
+import org.example.dto.AICandidateDoc;
+import org.example.exception.AIServiceUnavailableException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Runs {@link OpenAIServiceImpl} against a local stub of the chat completions endpoint.
+ */
+public class OpenAIServiceImplTest {
+
+    private static final List<AICandidateDoc> CANDIDATES = List.of(
+            new AICandidateDoc("1", "tech fleece jogger"),
+            new AICandidateDoc("2", "windrunner jacket"));
+
+    private static final String COMPLETION = """
+            {"id": "chatcmpl-1", "object": "chat.completion", "created": 0, "model": "gpt-4o-mini",
+             "choices": [{"index": 0, "finish_reason": "stop", "logprobs": null,
+                          "message": {"role": "assistant", "content": "[\\"2\\",\\"1\\"]", "refusal": null}}]}
+            """;
+
+    private final AtomicInteger requests = new AtomicInteger();
+
+    private final AtomicLong responseDelayMillis = new AtomicLong();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private HttpServer server;
+
+    private OpenAIClient openAIClient;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/chat/completions", exchange -> {
+            requests.incrementAndGet();
+            try {
+                Thread.sleep(responseDelayMillis.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = COMPLETION.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream outputStream = exchange.getResponseBody()) {
+                outputStream.write(body);
+            } catch (IOException e) {
+                // client gave up waiting
+            }
+        });
+        server.start();
+
+        openAIClient = OpenAIOkHttpClient.builder()
+                .apiKey("test")
+                .baseUrl("http://localhost:" + server.getAddress().getPort())
+                .maxRetries(0)
+                .build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        openAIClient.close();
+        server.stop(0);
+    }
+
+    @Test
+    void testRerankReturnsIdsInModelOrder() {
+        OpenAIServiceImpl openAIService = openAIService(config());
+
+        assertEquals(List.of("2", "1"), openAIService.getDocIdsIOpenAI("fleece", CANDIDATES));
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    void testCircuitOpensAfterTimeoutsAndSkipsOpenAI() {
+        EsFieldsConfig config = config();
+        config.getAiResilience().setTimeout(Duration.ofMillis(200));
+        OpenAIServiceImpl openAIService = openAIService(config);
+        responseDelayMillis.set(1_000);
+
+        for (int i = 0; i < config.getAiResilience().getMinimumNumberOfCalls(); i++) {
+            assertThrows(AIServiceUnavailableException.class, () -> openAIService.getDocIdsIOpenAI("fleece", CANDIDATES));
+        }
+        int requestsBeforeOpen = requests.get();
+
+        assertThrows(AIServiceUnavailableException.class, () -> openAIService.getDocIdsIOpenAI("fleece", CANDIDATES));
+
+        assertEquals(requestsBeforeOpen, requests.get());
+        assertEquals(1.0, meterRegistry.counter("openai.circuitbreaker.transitions",
+                "from", CircuitBreaker.State.CLOSED.name(), "to", CircuitBreaker.State.OPEN.name()).count());
+    }
+
+    private OpenAIServiceImpl openAIService(EsFieldsConfig config) {
+        OpenAIConfig openAIConfig = new OpenAIConfig();
+        return new OpenAIServiceImpl(
+                openAIClient,
+                config,
+                new RerankResultCache(config, meterRegistry),
+                openAIConfig.openAICircuitBreaker(config, meterRegistry),
+                openAIConfig.openAIBulkhead(config, meterRegistry),
+                new SearchMetrics(config, meterRegistry),
+                new OpenAICallExecutor(config));
+    }
+
+    private static EsFieldsConfig config() {
+        EsFieldsConfig.OpenAI openAI = new EsFieldsConfig.OpenAI();
+        openAI.setVersion("gpt-4o-mini");
+        openAI.setTemperature(0.0);
+        openAI.setMaxTokens(200);
+        openAI.setMaxPromptTokens(4000);
+
+        EsFieldsConfig.AIResilience resilience = new EsFieldsConfig.AIResilience();
+        resilience.setTimeout(Duration.ofSeconds(5));
+        resilience.setMaxConcurrentCalls(2);
+        resilience.setCallThreads(2);
+        resilience.setFailureRateThreshold(50f);
+        resilience.setSlowCallRateThreshold(100f);
+        resilience.setSlowCallDurationThreshold(Duration.ofSeconds(1));
+        resilience.setSlidingWindowSize(4);
+        resilience.setMinimumNumberOfCalls(4);
+        resilience.setWaitDurationInOpenState(Duration.ofMinutes(1));
+        resilience.setPermittedCallsInHalfOpenState(1);
+
+        EsFieldsConfig.RerankCache rerankCache = new EsFieldsConfig.RerankCache();
+        rerankCache.setEnabled(false);
+        rerankCache.setMaximumSize(10L);
+        rerankCache.setTtl(Duration.ofMinutes(1));
+
+        EsFieldsConfig config = new EsFieldsConfig();
+        config.setOpenAI(openAI);
+        config.setAiResilience(resilience);
+        config.setRerankCache(rerankCache);
+        return config;
+    }
+}
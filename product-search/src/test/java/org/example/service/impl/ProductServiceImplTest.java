@@ -0,0 +1,125 @@
+package org.example.service.impl;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.FieldValue;
+import co.elastic.clients.json.jackson.JacksonJsonpMapper;
+import co.elastic.clients.transport.rest_client.RestClientTransport;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.http.HttpHost;
+import org.elasticsearch.client.RestClient;
+import org.example.config.EsFieldsConfig;
+import org.example.dto.ConceptMatch;
+import org.example.dto.ProductRequestDTO;
+import org.example.enums.QueryType;
+import org.example.exception.ExpiredCursorException;
+import org.example.exception.InvalidCursorException;
+import org.example.mappers.ProductMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.bind.PropertySourcesPlaceholdersResolver;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySources;
+import org.springframework.boot.env.YamlPropertySourceLoader;
+import org.springframework.core.env.PropertySource;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Runs the cursor pagination of {@link ProductServiceImpl} against a local stub of the Elasticsearch search
+ * endpoint that answers like a cluster whose point in time has expired.
+ */
+public class ProductServiceImplTest {
+
+    private static final String PIT_EXPIRED_RESPONSE = """
+            {"error": {"root_cause": [{"type": "search_context_missing_exception", "reason": "No search context found for id [7]"}],
+                       "type": "search_phase_execution_exception", "reason": "all shards failed"},
+             "status": 404}
+            """;
+
+    private final AtomicInteger requests = new AtomicInteger();
+
+    private HttpServer server;
+
+    private RestClient restClient;
+
+    private ProductServiceImpl productService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            requests.incrementAndGet();
+            byte[] body = PIT_EXPIRED_RESPONSE.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.getResponseHeaders().add("X-Elastic-Product", "Elasticsearch");
+            exchange.sendResponseHeaders(404, body.length);
+            try (OutputStream outputStream = exchange.getResponseBody()) {
+                outputStream.write(body);
+            }
+        });
+        server.start();
+
+        restClient = RestClient.builder(new HttpHost("localhost", server.getAddress().getPort())).build();
+        EsFieldsConfig config = config();
+        productService = new ProductServiceImpl(
+                new ElasticsearchClient(new RestClientTransport(restClient, new JacksonJsonpMapper())),
+                null,
+                config,
+                new ProductMapper(config),
+                null,
+                null,
+                tokens -> new ConceptMatch(List.of(), tokens),
+                null,
+                null,
+                null,
+                null,
+                null,
+                new SearchMetrics(config, new SimpleMeterRegistry()),
+                null);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        restClient.close();
+        server.stop(0);
+    }
+
+    @Test
+    void testExpiredPointInTimeIsReportedAsExpiredCursor() {
+        String cursor = SearchCursor.of("pit-id", QueryType.STRICT, List.of(FieldValue.of(2.5), FieldValue.of(10L))).encode();
+
+        assertThrows(ExpiredCursorException.class, () -> productService.getSearchProductResponse(request(cursor)));
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    void testCursorOfStageWithoutCursorsIsRejectedBeforeSearching() {
+        String cursor = new SearchCursor("pit-id", QueryType.VECTOR, 2.5, 10L).encode();
+
+        assertThrows(InvalidCursorException.class, () -> productService.getSearchProductResponse(request(cursor)));
+        assertEquals(0, requests.get());
+    }
+
+    private static ProductRequestDTO request(String cursor) {
+        return ProductRequestDTO.builder().queryText("tech fleece").size(10).cursor(cursor).build();
+    }
+
+    private static EsFieldsConfig config() throws IOException {
+        List<PropertySource<?>> propertySources = new YamlPropertySourceLoader()
+                .load("application", new ClassPathResource("application.yml"));
+        return new Binder(ConfigurationPropertySources.from(propertySources), new PropertySourcesPlaceholdersResolver(propertySources))
+                .bind("elasticsearch", EsFieldsConfig.class)
+                .get();
+    }
+}
@@ -0,0 +1,81 @@
+package org.example.service.impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.config.EsFieldsConfig;
+import org.example.dto.AICandidateDoc;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+public class RerankResultCacheTest {
+
+    private static final List<AICandidateDoc> CANDIDATES = List.of(
+            new AICandidateDoc("1", "tech fleece jogger"),
+            new AICandidateDoc("2", "windrunner jacket"));
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testKeyDependsOnModelNormalizedQueryAndCandidateIds() {
+        RerankResultCache cache = new RerankResultCache(config(null, 100L), new SimpleMeterRegistry());
+
+        String key = cache.key("gpt-4o-mini", "Fleece  Jogger", CANDIDATES);
+
+        assertEquals(key, cache.key("gpt-4o-mini", " fleece jogger", CANDIDATES));
+        assertNotEquals(key, cache.key("gpt-4o", "fleece jogger", CANDIDATES));
+        assertNotEquals(key, cache.key("gpt-4o-mini", "fleece jogger", CANDIDATES.subList(0, 1)));
+    }
+
+    @Test
+    void testResultsSurviveRestartWhenPersisted() throws Exception {
+        Path file = tempDir.resolve("rerank_cache.ndjson");
+        RerankResultCache cache = new RerankResultCache(config(file, 100L), new SimpleMeterRegistry());
+        String key = cache.key("gpt-4o-mini", "fleece jogger", CANDIDATES);
+        cache.put(key, List.of("2", "1"));
+        cache.put(key, List.of("2", "1"));
+        cache.close();
+
+        RerankResultCache restarted = new RerankResultCache(config(file, 100L), new SimpleMeterRegistry());
+
+        assertEquals(Optional.of(List.of("2", "1")), restarted.get(key));
+        assertEquals(1, Files.readAllLines(file).size());
+    }
+
+    @Test
+    void testWriterCompactsTheFileOnceEvictedEntriesOutnumberLiveOnes() throws Exception {
+        Path file = tempDir.resolve("rerank_cache.ndjson");
+        RerankResultCache cache = new RerankResultCache(config(file, 2L), new SimpleMeterRegistry());
+        for (int i = 0; i < 6; i++) {
+            cache.put(cache.key("gpt-4o-mini", "query " + i, CANDIDATES), List.of("1", "2"));
+        }
+
+        assertFalse(Files.exists(file));
+
+        cache.close();
+
+        assertEquals(2, Files.readAllLines(file).size());
+    }
+
+    private static EsFieldsConfig config(Path persistenceFile, long maximumSize) {
+        EsFieldsConfig.RerankCache rerankCache = new EsFieldsConfig.RerankCache();
+        rerankCache.setEnabled(true);
+        rerankCache.setMaximumSize(maximumSize);
+        rerankCache.setTtl(Duration.ofHours(1));
+        rerankCache.setPersistenceFile(persistenceFile == null ? null : persistenceFile.toString());
+        rerankCache.setFlushInterval(Duration.ofHours(1));
+
+        EsFieldsConfig config = new EsFieldsConfig();
+        config.setRerankCache(rerankCache);
+        return config;
+    }
+}
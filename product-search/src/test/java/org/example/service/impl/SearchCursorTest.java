@@ -0,0 +1,47 @@
+package org.example.service.impl;
+
+import co.elastic.clients.elasticsearch._types.FieldValue;
+import org.example.enums.QueryType;
+import org.example.exception.InvalidCursorException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class SearchCursorTest {
+
+    private static final List<QueryType> CURSOR_STAGES = List.of(QueryType.STRICT, QueryType.CATEGORY_ONLY_STRICT_MATCH);
+
+    @Test
+    void testCursorRoundTripKeepsSearchAfterValues() {
+        SearchCursor cursor = SearchCursor.of("pit-id", QueryType.CATEGORY_ONLY_STRICT_MATCH,
+                List.of(FieldValue.of(3.25), FieldValue.of(42L)));
+
+        SearchCursor decoded = SearchCursor.decode(cursor.encode(), CURSOR_STAGES);
+
+        assertEquals(cursor, decoded);
+        assertEquals(3.25, decoded.searchAfter().get(0).doubleValue());
+        assertEquals(42L, decoded.searchAfter().get(1).longValue());
+    }
+
+    @Test
+    void testInvalidCursorIsRejected() {
+        assertThrows(InvalidCursorException.class, () -> SearchCursor.decode("not a cursor", CURSOR_STAGES));
+        assertThrows(InvalidCursorException.class, () -> SearchCursor.decode(
+                new SearchCursor("pit-id", QueryType.VECTOR, 1.0, 1L).encode(), CURSOR_STAGES));
+        assertThrows(InvalidCursorException.class, () -> SearchCursor.decode(
+                new SearchCursor("pit-id", null, 1.0, 1L).encode(), CURSOR_STAGES));
+        assertThrows(InvalidCursorException.class, () -> SearchCursor.decode(
+                new SearchCursor(null, QueryType.STRICT, 1.0, 1L).encode(), CURSOR_STAGES));
+        assertThrows(InvalidCursorException.class, () -> SearchCursor.decode(
+                encode("{\"pitId\": \"pit-id\", \"stage\": \"STRICT\", \"score\": 1.0}"), CURSOR_STAGES));
+    }
+
+    private static String encode(String json) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,159 @@
+package org.example.service.impl;
+
+import co.elastic.clients.elasticsearch.ElasticsearchAsyncClient;
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import co.elastic.clients.json.jackson.JacksonJsonpMapper;
+import co.elastic.clients.transport.rest_client.RestClientTransport;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.http.HttpHost;
+import org.elasticsearch.client.RestClient;
+import org.example.config.EsFieldsConfig;
+import org.example.dto.FacetDTO;
+import org.example.dto.ProductRequestDTO;
+import org.example.event.IndexVersionChangedEvent;
+import org.example.mappers.ProductMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs {@link SearchFacetCache} against a local stub of the Elasticsearch search endpoint.
+ */
+public class SearchFacetCacheTest {
+
+    private static final String AGGREGATION_RESPONSE = """
+            {"took": 1, "timed_out": false, "_shards": {"total": 1, "successful": 1, "skipped": 0, "failed": 0},
+             "hits": {"max_score": null, "hits": []},
+             "aggregations": {
+               "sterms#brand": {"doc_count_error_upper_bound": 0, "sum_other_doc_count": 0,
+                                "buckets": [{"key": "nike", "doc_count": 3}]},
+               "range#price_ranges": {"buckets": [{"key": "Cheap", "to": 100.0, "doc_count": 2}]}}}
+            """;
+
+    private static final Query CATEGORY_QUERY = Query.of(q -> q.term(t -> t.field("category.keyword").value("shoes")));
+
+    private final AtomicInteger requests = new AtomicInteger();
+
+    private HttpServer server;
+
+    private RestClient restClient;
+
+    private SearchFacetCache searchFacetCache;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            requests.incrementAndGet();
+            byte[] body = AGGREGATION_RESPONSE.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.getResponseHeaders().add("X-Elastic-Product", "Elasticsearch");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream outputStream = exchange.getResponseBody()) {
+                outputStream.write(body);
+            }
+        });
+        server.start();
+
+        restClient = RestClient.builder(new HttpHost("localhost", server.getAddress().getPort())).build();
+        EsFieldsConfig config = config();
+        searchFacetCache = new SearchFacetCache(
+                new ElasticsearchAsyncClient(new RestClientTransport(restClient, new JacksonJsonpMapper())),
+                config,
+                new ProductMapper(config),
+                new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        restClient.close();
+        server.stop(0);
+    }
+
+    @Test
+    void testFacetsAreAggregatedOncePerQuery() {
+        ProductRequestDTO page1 = ProductRequestDTO.builder().queryText("nike shoes").page(0).build();
+        ProductRequestDTO page2 = ProductRequestDTO.builder().queryText("nike shoes").page(1).build();
+
+        FacetDTO facets = searchFacetCache.getFacets(page1, CATEGORY_QUERY);
+        searchFacetCache.getFacets(page2, CATEGORY_QUERY);
+
+        assertEquals(1, requests.get());
+        assertEquals("nike", facets.facetBucketDTO().get("brand").get(0).value());
+        assertEquals(2L, facets.facetBucketDTO().get("price_ranges").get(0).count());
+    }
+
+    @Test
+    void testInlineFacetsAreCachedWithoutAggregationSearch() {
+        ProductRequestDTO request = ProductRequestDTO.builder().queryText("nike shoes").build();
+        FacetDTO inlineFacets = FacetDTO.builder().facetBucketDTO(Map.of()).build();
+
+        assertFalse(searchFacetCache.contains(request, CATEGORY_QUERY));
+        searchFacetCache.put(request, CATEGORY_QUERY, inlineFacets);
+
+        assertTrue(searchFacetCache.contains(request, CATEGORY_QUERY));
+        assertSame(inlineFacets, searchFacetCache.getFacets(request, CATEGORY_QUERY));
+        assertEquals(0, requests.get());
+    }
+
+    @Test
+    void testIndexVersionChangeInvalidatesFacets() {
+        ProductRequestDTO request = ProductRequestDTO.builder().queryText("nike shoes").build();
+
+        searchFacetCache.getFacets(request, CATEGORY_QUERY);
+        searchFacetCache.onIndexVersionChanged(new IndexVersionChangedEvent("products", "products_v1", "products_v2"));
+        searchFacetCache.getFacets(request, CATEGORY_QUERY);
+
+        assertEquals(2, requests.get());
+    }
+
+    private static EsFieldsConfig config() {
+        EsFieldsConfig.Index index = new EsFieldsConfig.Index();
+        index.setProductIndex("products");
+
+        EsFieldsConfig.Request request = new EsFieldsConfig.Request();
+        request.setDefaultQuerySize(10);
+
+        EsFieldsConfig.Fields fields = new EsFieldsConfig.Fields();
+        fields.setBrand("brand");
+        fields.setBrandKeyword("brand.keyword");
+        fields.setPrice("price");
+
+        EsFieldsConfig.Aggregation aggregation = new EsFieldsConfig.Aggregation();
+        aggregation.setCount("_count");
+        aggregation.setKey("_key");
+        aggregation.setCheap("Cheap");
+        aggregation.setAverage("Average");
+        aggregation.setExpensive("Expensive");
+        aggregation.setPriceRanges("price_ranges");
+        aggregation.setCheapPrice(100.0);
+        aggregation.setExpensivePrice(500.0);
+
+        EsFieldsConfig.FacetCache facetCache = new EsFieldsConfig.FacetCache();
+        facetCache.setEnabled(true);
+        facetCache.setMaximumSize(10L);
+        facetCache.setTtl(Duration.ofMinutes(1));
+
+        EsFieldsConfig config = new EsFieldsConfig();
+        config.setIndex(index);
+        config.setRequest(request);
+        config.setFields(fields);
+        config.setAggregation(aggregation);
+        config.setFacetCache(facetCache);
+        return config;
+    }
+}
@@ -0,0 +1,136 @@
+package org.example.service.impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.config.EsFieldsConfig;
+import org.example.dto.ProductResponseDTO;
+import org.example.exception.SearchServiceUnavailableException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SearchRequestCoalescerTest {
+
+    private static final SearchResultCache.Key KEY = new SearchResultCache.Key("nike shoes", 10, 0, List.of("name"), 0);
+
+    private final ExecutorService executorService = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final SearchRequestCoalescer searchRequestCoalescer = new SearchRequestCoalescer(config(), meterRegistry);
+
+    @AfterEach
+    void tearDown() {
+        executorService.shutdownNow();
+    }
+
+    @Test
+    void testConcurrentIdenticalSearchesShareOneExecution() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger searches = new AtomicInteger();
+        ProductResponseDTO response = ProductResponseDTO.buildEmptyProductResponseDTO();
+
+        List<Future<ProductResponseDTO>> requests = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            requests.add(executorService.submit(() -> searchRequestCoalescer.execute(KEY, () -> {
+                searches.incrementAndGet();
+                await(release);
+                return response;
+            })));
+        }
+        waitUntilCoalesced(9);
+        release.countDown();
+
+        List<ProductResponseDTO> responses = new ArrayList<>();
+        for (Future<ProductResponseDTO> request : requests) {
+            responses.add(request.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, searches.get());
+        // the leader gets the response itself, every waiting request its own copy
+        assertEquals(1, responses.stream().filter(r -> r == response).count());
+        assertTrue(responses.stream().allMatch(response::equals));
+
+        searchRequestCoalescer.execute(KEY, () -> {
+            searches.incrementAndGet();
+            return response;
+        });
+        assertEquals(2, searches.get());
+    }
+
+    @Test
+    void testFailureIsSharedWithWaitingRequests() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<ProductResponseDTO> leader = executorService.submit(() -> searchRequestCoalescer.execute(KEY, () -> {
+            await(release);
+            throw new SearchServiceUnavailableException("es down");
+        }));
+        Future<ProductResponseDTO> follower = executorService.submit(() -> searchRequestCoalescer.execute(KEY,
+                ProductResponseDTO::buildEmptyProductResponseDTO));
+        waitUntilCoalesced(1);
+        release.countDown();
+
+        ExecutionException leaderFailure = assertThrows(ExecutionException.class, () -> leader.get(5, TimeUnit.SECONDS));
+        ExecutionException followerFailure = assertThrows(ExecutionException.class, () -> follower.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(SearchServiceUnavailableException.class, leaderFailure.getCause());
+        assertInstanceOf(SearchServiceUnavailableException.class, followerFailure.getCause());
+    }
+
+    @Test
+    void testErrorCompletesTheFlight() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<ProductResponseDTO> leader = executorService.submit(() -> searchRequestCoalescer.execute(KEY, () -> {
+            await(release);
+            throw new AssertionError("mapper bug");
+        }));
+        Future<ProductResponseDTO> follower = executorService.submit(() -> searchRequestCoalescer.execute(KEY,
+                ProductResponseDTO::buildEmptyProductResponseDTO));
+        waitUntilCoalesced(1);
+        release.countDown();
+
+        assertInstanceOf(AssertionError.class, assertThrows(ExecutionException.class, () -> leader.get(5, TimeUnit.SECONDS)).getCause());
+        assertInstanceOf(AssertionError.class, assertThrows(ExecutionException.class, () -> follower.get(5, TimeUnit.SECONDS)).getCause());
+
+        ProductResponseDTO response = ProductResponseDTO.buildEmptyProductResponseDTO();
+        assertSame(response, searchRequestCoalescer.execute(KEY, () -> response));
+    }
+
+    private void waitUntilCoalesced(int requests) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.counter(SearchRequestCoalescer.COALESCED_COUNTER).count() < requests && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static EsFieldsConfig config() {
+        EsFieldsConfig.Search search = new EsFieldsConfig.Search();
+        search.setCoalescingEnabled(true);
+
+        EsFieldsConfig config = new EsFieldsConfig();
+        config.setSearch(search);
+        return config;
+    }
+}
@@ -0,0 +1,137 @@
+package org.example.service.impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.config.EsFieldsConfig;
+import org.example.dto.ProductResponseDTO;
+import org.example.service.impl.SearchStageExecutor.SearchStage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SearchStageExecutorTest {
+
+    private final ExecutorService executorService = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final SearchStageExecutor searchStageExecutor = new SearchStageExecutor(executorService, meterRegistry,
+            new SearchMetrics(new EsFieldsConfig(), meterRegistry));
+
+    @AfterEach
+    void tearDown() {
+        executorService.shutdownNow();
+    }
+
+    @Test
+    void testHedgedStageDoesNotWinOverSlowerHigherPriorityStage() {
+        List<SearchStage<?>> stages = List.of(
+                SearchStage.of("strict", () -> {
+                    sleep(200);
+                    return response("strict");
+                }),
+                SearchStage.of("vector", () -> response("vector")));
+
+        Optional<ProductResponseDTO> response = searchStageExecutor.executeHedged(stages, Duration.ofMillis(20));
+
+        assertEquals("strict", response.orElseThrow().getMessage());
+        assertEquals(1.0, meterRegistry.counter(SearchStageExecutor.HEDGE_COUNTER, "stage", "vector").count());
+    }
+
+    @Test
+    void testLowerPriorityStageIsCancelledWhenHigherPriorityStageWins() throws InterruptedException {
+        CountDownLatch aiStarted = new CountDownLatch(1);
+        AtomicBoolean aiInterrupted = new AtomicBoolean();
+        AtomicBoolean rerankCalled = new AtomicBoolean();
+
+        List<SearchStage<?>> stages = List.of(
+                SearchStage.of("strict", () -> {
+                    await(aiStarted);
+                    return response("strict");
+                }),
+                new SearchStage<>("ai_search",
+                        () -> {
+                            aiStarted.countDown();
+                            try {
+                                Thread.sleep(5_000);
+                            } catch (InterruptedException e) {
+                                aiInterrupted.set(true);
+                            }
+                            return Optional.of("candidates");
+                        },
+                        candidates -> {
+                            rerankCalled.set(true);
+                            return response("ai");
+                        }));
+
+        Optional<ProductResponseDTO> response = searchStageExecutor.executeHedged(stages, Duration.ofMillis(10));
+
+        assertEquals("strict", response.orElseThrow().getMessage());
+        assertFalse(rerankCalled.get());
+        waitUntil(aiInterrupted);
+        assertTrue(aiInterrupted.get());
+    }
+
+    @Test
+    void testEmptyStagesFallBackInOrder() {
+        List<SearchStage<?>> stages = List.of(
+                SearchStage.of("strict", Optional::empty),
+                SearchStage.of("vector", Optional::empty),
+                new SearchStage<>("ai_search", () -> Optional.of("candidates"), candidates -> response(candidates)));
+
+        assertEquals("candidates", searchStageExecutor.executeHedged(stages, Duration.ofSeconds(1)).orElseThrow().getMessage());
+        assertEquals("candidates", searchStageExecutor.execute(stages).orElseThrow().getMessage());
+        assertEquals(2, meterRegistry.find(SearchStageExecutor.STAGE_TIMER).tag("stage", "vector").timer().count());
+    }
+
+    @Test
+    void testWinningStageIsCounted() {
+        searchStageExecutor.execute(List.of(
+                SearchStage.of("strict", Optional::empty),
+                SearchStage.of("vector", () -> response("vector"))));
+        searchStageExecutor.execute(List.of(SearchStage.of("strict", Optional::empty)));
+
+        assertEquals(1.0, meterRegistry.counter(SearchMetrics.WINNER_COUNTER, "stage", "vector").count());
+        assertEquals(1.0, meterRegistry.counter(SearchMetrics.WINNER_COUNTER, "stage", SearchMetrics.NO_WINNER).count());
+    }
+
+    private static Optional<ProductResponseDTO> response(String message) {
+        ProductResponseDTO response = ProductResponseDTO.buildEmptyProductResponseDTO();
+        response.setMessage(message);
+        return Optional.of(response);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void waitUntil(AtomicBoolean condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.get() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+}
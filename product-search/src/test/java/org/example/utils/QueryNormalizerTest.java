@@ -0,0 +1,31 @@
+package org.example.utils;
+
+import org.example.utils.QueryNormalizer.NormalizedQuery;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class QueryNormalizerTest {
+
+    @Test
+    void testQueryIsTokenizedLowercasedAndFolded() {
+        NormalizedQuery normalizedQuery = QueryNormalizer.normalize("  Café-Crème,  O'Neill  Größe 1,000 ml (2.5L)! ");
+
+        assertEquals(List.of("cafe", "creme", "o'neill", "grosse", "1,000", "ml", "2.5l"), normalizedQuery.tokens());
+        assertEquals("cafe creme o'neill grosse 1,000 ml 2.5l", normalizedQuery.text());
+        assertEquals(List.of(), QueryNormalizer.normalize(" , - ").tokens());
+    }
+
+    @Test
+    void testNormalizedQueryIsReturnedAsIs() {
+        String queryText = "samsung galaxy s24";
+
+        NormalizedQuery normalizedQuery = QueryNormalizer.normalize(queryText);
+
+        assertSame(queryText, normalizedQuery.text());
+        assertEquals(List.of("samsung", "galaxy", "s24"), normalizedQuery.tokens());
+    }
+}